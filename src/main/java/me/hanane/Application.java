@@ -5,7 +5,7 @@ import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
 import com.vaadin.flow.theme.Theme;
-import me.hanane.data.service.SamplePersonRepository;
+import me.hanane.data.service.SamplePersonCountService;
 import me.hanane.views.login.Login;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -59,13 +59,16 @@ public class Application extends VaadinWebSecurity implements AppShellConfigurat
 
     @Bean
     SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(DataSource dataSource,
-            SqlInitializationProperties properties, SamplePersonRepository repository) {
+            SqlInitializationProperties properties, SamplePersonCountService counts) {
         // This bean ensures the database is only initialized when empty
         return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
             @Override
             public boolean initializeDatabase() {
-                if (repository.count() == 0L) {
-                    return super.initializeDatabase();
+                if (counts.count() == 0L) {
+                    final boolean initialized = super.initializeDatabase();
+                    // the scripts insert around the service
+                    counts.refresh();
+                    return initialized;
                 }
                 return false;
             }
@@ -0,0 +1,126 @@
+package me.hanane.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU map whose entries carry their own expiry time.
+ *
+ * Expired entries are not removed on read, they stay around until evicted so
+ * that callers can still fall back on them with {@link #getStale(Object)}.
+ * Values may be {@code null}, which is how negative results are cached.
+ */
+public class ExpiringCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringCache(int maxSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the entry for the key if it has not expired yet, {@code null} otherwise.
+     */
+    public synchronized Entry<V> get(K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Returns the entry for the key even if it has already expired.
+     */
+    public synchronized Entry<V> getStale(K key) {
+        return entries.get(key);
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        put(key, new Entry<>(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    public synchronized void put(K key, Entry<V> entry) {
+        entries.put(key, entry);
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Copies the current entries, least recently used first.
+     */
+    public synchronized Map<K, Entry<V>> snapshot() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Registers the hit, miss and eviction counts and the size of the cache
+     * under the usual {@code cache.*} meter names, tagged with its name.
+     */
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, ExpiringCache::hits)
+                .tags("cache", name, "result", "hit")
+                .description("Lookups that found an unexpired entry")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, ExpiringCache::misses)
+                .tags("cache", name, "result", "miss")
+                .description("Lookups that found no entry or an expired one")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", this, ExpiringCache::evictions)
+                .tags("cache", name)
+                .description("Entries evicted to stay within the size bound")
+                .register(registry);
+        Gauge.builder("cache.size", this, ExpiringCache::size)
+                .tags("cache", name)
+                .description("Entries in the cache, expired ones included")
+                .register(registry);
+    }
+
+    public record Entry<V>(V value, long expiresAt) {
+
+        public boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
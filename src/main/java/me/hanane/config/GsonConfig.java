@@ -0,0 +1,24 @@
+package me.hanane.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherInfoTypeAdapter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared {@link Gson} instance for provider payloads, with the streaming
+ * weather adapter registered so responses never go through a JSON tree. The
+ * {@link me.hanane.weather.WeatherProviderClient} decodes responses with it.
+ */
+@Configuration
+public class GsonConfig {
+
+    @Bean
+    public Gson providerGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(WeatherInfo.class, new WeatherInfoTypeAdapter())
+                .create();
+    }
+}
@@ -0,0 +1,26 @@
+package me.hanane.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor used to run calls against the geolocation and weather providers,
+ * so that servlet request threads never wait on an upstream round trip.
+ */
+@Configuration
+public class ProviderExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor providerExecutor(@Value("${htriggers.provider.threads:16}") int threads,
+                                                   @Value("${htriggers.provider.queue-capacity:256}") int queueCapacity) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("provider-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
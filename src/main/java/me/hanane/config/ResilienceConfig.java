@@ -0,0 +1,41 @@
+package me.hanane.config;
+
+import java.time.Duration;
+import me.hanane.resilience.CircuitBreaker;
+import me.hanane.resilience.LatencyTracker;
+import me.hanane.resilience.Resilience;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One {@link Resilience} per upstream provider, so a degraded weather provider
+ * does not open the breaker of the geocoding one.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public Resilience weatherResilience(@Value("${htriggers.weather.resilience.deadline:3s}") Duration deadline,
+                                        @Value("${htriggers.weather.resilience.hedging:false}") boolean hedging,
+                                        @Value("${htriggers.weather.resilience.max-hedges:4}") int maxHedges,
+                                        @Value("${htriggers.weather.resilience.window-size:50}") int windowSize,
+                                        @Value("${htriggers.weather.resilience.minimum-calls:10}") int minimumCalls,
+                                        @Value("${htriggers.weather.resilience.failure-rate:0.5}") double failureRate,
+                                        @Value("${htriggers.weather.resilience.open-duration:30s}") Duration openDuration) {
+        return new Resilience("weather", new CircuitBreaker(windowSize, minimumCalls, failureRate, openDuration),
+                new LatencyTracker(200), deadline, hedging, maxHedges);
+    }
+
+    @Bean
+    public Resilience geolocationResilience(@Value("${htriggers.geolocation.resilience.deadline:3s}") Duration deadline,
+                                            @Value("${htriggers.geolocation.resilience.hedging:false}") boolean hedging,
+                                            @Value("${htriggers.geolocation.resilience.max-hedges:4}") int maxHedges,
+                                            @Value("${htriggers.geolocation.resilience.window-size:50}") int windowSize,
+                                            @Value("${htriggers.geolocation.resilience.minimum-calls:10}") int minimumCalls,
+                                            @Value("${htriggers.geolocation.resilience.failure-rate:0.5}") double failureRate,
+                                            @Value("${htriggers.geolocation.resilience.open-duration:30s}") Duration openDuration) {
+        return new Resilience("geolocation", new CircuitBreaker(windowSize, minimumCalls, failureRate, openDuration),
+                new LatencyTracker(200), deadline, hedging, maxHedges);
+    }
+}
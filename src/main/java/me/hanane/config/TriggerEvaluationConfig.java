@@ -0,0 +1,36 @@
+package me.hanane.config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pool that evaluates the trigger partitions of a polling cycle in parallel,
+ * kept apart from the common pool so evaluation never competes with parallel
+ * streams elsewhere. Backtests get a pool of their own, so a long backtest
+ * does not hold up live evaluation.
+ */
+@Configuration
+public class TriggerEvaluationConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool triggerEvaluationPool(@Value("${htriggers.trigger.evaluation.parallelism:0}") int parallelism) {
+        return pool("trigger-evaluation-", parallelism);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool triggerBacktestPool(@Value("${htriggers.backtest.parallelism:0}") int parallelism) {
+        return pool("trigger-backtest-", parallelism);
+    }
+
+    private static ForkJoinPool pool(String prefix, int parallelism) {
+        final int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -31,6 +31,10 @@ public abstract class AbstractEntity {
         return version;
     }
 
+    protected void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public int hashCode() {
         if (getId() != null) {
@@ -66,4 +66,23 @@ public class SamplePerson extends AbstractEntity {
         this.important = important;
     }
 
+    /**
+     * Detached copy including the id and version, so saving it is still
+     * checked against concurrent updates.
+     */
+    public SamplePerson copy() {
+        final SamplePerson copy = new SamplePerson();
+        copy.setId(getId());
+        copy.setVersion(getVersion());
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.email = email;
+        copy.phone = phone;
+        copy.dateOfBirth = dateOfBirth;
+        copy.occupation = occupation;
+        copy.role = role;
+        copy.important = important;
+        return copy;
+    }
+
 }
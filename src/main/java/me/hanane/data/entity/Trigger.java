@@ -0,0 +1,159 @@
+package me.hanane.data.entity;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import javax.validation.constraints.NotBlank;
+import me.hanane.location.Geolocation;
+
+@Entity
+// "trigger" is a reserved word in H2
+@Table(name = "weather_trigger")
+public class Trigger extends AbstractEntity {
+
+    @NotBlank
+    private String name;
+    private String owner;
+    @NotBlank
+    private String city;
+    private String state;
+    private String country;
+    private double latitude;
+    private double longitude;
+    // a trigger either compares one field with a threshold or has an expression
+    @Enumerated(EnumType.STRING)
+    private TriggerField field;
+    @Enumerated(EnumType.STRING)
+    private TriggerOperator operator;
+    private double threshold;
+    @Column(length = 1024)
+    private String expression;
+    // released only once the value is this far back past the threshold
+    private double hysteresis;
+    private Duration minimumDwell = Duration.ZERO;
+    private Duration cooldown = Duration.ZERO;
+    // scheduled triggers fire every day at this time instead of on a condition
+    private LocalTime scheduleTime;
+    private String scheduleZone;
+    private boolean enabled = true;
+
+    public String getName() {
+        return name;
+    }
+    public void setName(String name) {
+        this.name = name;
+    }
+    public String getOwner() {
+        return owner;
+    }
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    public String getCity() {
+        return city;
+    }
+    public void setCity(String city) {
+        this.city = city;
+    }
+    public String getState() {
+        return state;
+    }
+    public void setState(String state) {
+        this.state = state;
+    }
+    public String getCountry() {
+        return country;
+    }
+    public void setCountry(String country) {
+        this.country = country;
+    }
+    public double getLatitude() {
+        return latitude;
+    }
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+    public double getLongitude() {
+        return longitude;
+    }
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+    public TriggerField getField() {
+        return field;
+    }
+    public void setField(TriggerField field) {
+        this.field = field;
+    }
+    public TriggerOperator getOperator() {
+        return operator;
+    }
+    public void setOperator(TriggerOperator operator) {
+        this.operator = operator;
+    }
+    public double getThreshold() {
+        return threshold;
+    }
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+    public String getExpression() {
+        return expression;
+    }
+    public void setExpression(String expression) {
+        this.expression = expression;
+    }
+    public double getHysteresis() {
+        return hysteresis;
+    }
+    public void setHysteresis(double hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+    public Duration getMinimumDwell() {
+        return minimumDwell;
+    }
+    public void setMinimumDwell(Duration minimumDwell) {
+        this.minimumDwell = minimumDwell;
+    }
+    public Duration getCooldown() {
+        return cooldown;
+    }
+    public void setCooldown(Duration cooldown) {
+        this.cooldown = cooldown;
+    }
+    public LocalTime getScheduleTime() {
+        return scheduleTime;
+    }
+    public void setScheduleTime(LocalTime scheduleTime) {
+        this.scheduleTime = scheduleTime;
+    }
+    public String getScheduleZone() {
+        return scheduleZone;
+    }
+    public void setScheduleZone(String scheduleZone) {
+        this.scheduleZone = scheduleZone;
+    }
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isScheduled() {
+        return scheduleTime != null;
+    }
+
+    public boolean hasExpression() {
+        return expression != null && !expression.isBlank();
+    }
+
+    public Geolocation toGeolocation() {
+        return new Geolocation(city, state, country, longitude, latitude);
+    }
+
+}
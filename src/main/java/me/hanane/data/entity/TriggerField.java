@@ -0,0 +1,54 @@
+package me.hanane.data.entity;
+
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+
+/**
+ * Weather value a trigger watches. Missing parts of a snapshot read as NaN,
+ * which never satisfies any operator.
+ */
+public enum TriggerField {
+
+    TEMPERATURE("Temperature", "°C"),
+    FEELS_LIKE("Feels like", "°C"),
+    HUMIDITY("Humidity", "%"),
+    PRESSURE("Pressure", "hPa"),
+    WIND_SPEED("Wind speed", "m/s"),
+    WIND_GUST("Wind gust", "m/s"),
+    CLOUDINESS("Cloudiness", "%"),
+    RAIN("Rain (1h)", "mm");
+
+    private final String label;
+    private final String unit;
+
+    TriggerField(String label, String unit) {
+        this.label = label;
+        this.unit = unit;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public double extract(WeatherInfo weatherInfo) {
+        final MainInfo mainInfo = weatherInfo.mainInfo();
+        final Wind wind = weatherInfo.wind();
+        final Weather weather = weatherInfo.weather();
+        return switch (this) {
+            case TEMPERATURE -> mainInfo == null ? Double.NaN : mainInfo.temp();
+            case FEELS_LIKE -> mainInfo == null ? Double.NaN : mainInfo.feels_like();
+            case HUMIDITY -> mainInfo == null ? Double.NaN : mainInfo.humidity();
+            case PRESSURE -> mainInfo == null ? Double.NaN : mainInfo.pressure();
+            case WIND_SPEED -> wind == null ? Double.NaN : wind.speed();
+            case WIND_GUST -> wind == null ? Double.NaN : wind.gust();
+            case CLOUDINESS -> weather == null ? Double.NaN : weather.cloudiness();
+            case RAIN -> weather == null ? Double.NaN : weather.rainLastHour();
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package me.hanane.data.entity;
+
+public enum TriggerOperator {
+
+    GREATER_THAN(">"),
+    GREATER_OR_EQUAL(">="),
+    LESS_THAN("<"),
+    LESS_OR_EQUAL("<=");
+
+    private final String symbol;
+
+    TriggerOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public boolean test(double value, double threshold) {
+        return switch (this) {
+            case GREATER_THAN -> value > threshold;
+            case GREATER_OR_EQUAL -> value >= threshold;
+            case LESS_THAN -> value < threshold;
+            case LESS_OR_EQUAL -> value <= threshold;
+        };
+    }
+
+    /**
+     * Tests the value with a hysteresis band: a condition that is already
+     * active only releases once the value is past the threshold by the band.
+     */
+    public boolean test(double value, double threshold, double hysteresis, boolean active) {
+        return test(value, active ? releaseThreshold(threshold, hysteresis) : threshold);
+    }
+
+    /**
+     * The threshold an active condition is tested against: past the threshold
+     * by the band, on the side where the condition no longer holds.
+     */
+    public double releaseThreshold(double threshold, double hysteresis) {
+        return switch (this) {
+            case GREATER_THAN, GREATER_OR_EQUAL -> threshold - hysteresis;
+            case LESS_THAN, LESS_OR_EQUAL -> threshold + hysteresis;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package me.hanane.data.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position after a row in a sorted listing, made of the row's values of the
+ * sort columns followed by its id. Listing the rows after a keyset seeks
+ * straight to it through the sort order, so a page deep into a table costs as
+ * much as the first one.
+ */
+public record Keyset(List<Object> values) {
+
+    public Keyset {
+        values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * The sort with {@code id} appended as the tie breaker, which makes the
+     * order total.
+     */
+    public static Sort withId(Sort sort) {
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("id"));
+    }
+
+    /**
+     * The keyset after the row, whose properties are read through their
+     * getters, or their accessors if the row is a record.
+     *
+     * @param sort the sort including the id, see {@link #withId(Sort)}
+     */
+    public static Keyset after(Object row, Sort sort) {
+        final BeanWrapperImpl wrapper = new BeanWrapperImpl(row);
+        final List<Object> values = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            values.add(wrapper.getPropertyValue(order.getProperty()));
+        }
+        return new Keyset(values);
+    }
+}
@@ -0,0 +1,115 @@
+package me.hanane.data.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.data.entity.SamplePerson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache in front of the database for {@link SamplePersonService}: people by
+ * id and unfiltered pages of grid rows.
+ *
+ * People are stored and handed out as detached copies, since callers bind
+ * forms to them, and carry their version so a save from a cached copy is
+ * still checked for concurrent updates. An older version never replaces a
+ * newer one. Every write bumps a generation; values loaded before it are not
+ * stored, so a read racing with a write cannot bring back stale data.
+ *
+ * Hits, misses, evictions and sizes of both caches are published as meters.
+ */
+@Component
+public class SamplePersonCache implements MeterBinder {
+
+    private final ExpiringCache<Long, SamplePerson> people;
+    private final ExpiringCache<PageKey, List<SamplePersonRow>> pages;
+    private final Duration personTtl;
+    private final Duration pageTtl;
+    private long generation;
+
+    public SamplePersonCache(@Value("${htriggers.person.cache.person-size:1000}") int personSize,
+                             @Value("${htriggers.person.cache.person-ttl:5m}") Duration personTtl,
+                             @Value("${htriggers.person.cache.page-size:200}") int pageSize,
+                             @Value("${htriggers.person.cache.page-ttl:30s}") Duration pageTtl) {
+        this.people = new ExpiringCache<>(personSize);
+        this.pages = new ExpiringCache<>(pageSize);
+        this.personTtl = personTtl;
+        this.pageTtl = pageTtl;
+    }
+
+    public Optional<SamplePerson> get(Long id, Supplier<Optional<SamplePerson>> loader) {
+        final ExpiringCache.Entry<SamplePerson> cached = people.get(id);
+        if (cached != null) {
+            return Optional.of(cached.value().copy());
+        }
+        final long loadedIn = generation();
+        final Optional<SamplePerson> loaded = loader.get();
+        loaded.ifPresent(person -> put(person, loadedIn));
+        return loaded;
+    }
+
+    public List<SamplePersonRow> page(Sort sort, Keyset after, int limit, Supplier<List<SamplePersonRow>> loader) {
+        final PageKey key = new PageKey(sort, after, limit);
+        final ExpiringCache.Entry<List<SamplePersonRow>> cached = pages.get(key);
+        if (cached != null) {
+            return cached.value();
+        }
+        final long loadedIn = generation();
+        final List<SamplePersonRow> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            if (loadedIn == generation) {
+                pages.put(key, loaded, pageTtl);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores a person just saved and drops every cached page.
+     */
+    public synchronized void updated(SamplePerson person) {
+        generation++;
+        pages.clear();
+        put(person, generation);
+    }
+
+    /**
+     * Drops the person, for example after a delete or a failed save, and
+     * every cached page.
+     */
+    public synchronized void invalidate(Long id) {
+        generation++;
+        pages.clear();
+        people.invalidate(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        people.bindTo(registry, "people");
+        pages.bindTo(registry, "person.pages");
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized void put(SamplePerson person, long loadedIn) {
+        if (loadedIn != generation) {
+            return;
+        }
+        final ExpiringCache.Entry<SamplePerson> current = people.getStale(person.getId());
+        if (current != null && current.value().getVersion() > person.getVersion()) {
+            return;
+        }
+        people.put(person.getId(), person.copy(), personTtl);
+    }
+
+    public record PageKey(Sort sort, Keyset after, int limit) {
+    }
+}
@@ -0,0 +1,118 @@
+package me.hanane.data.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.data.entity.SamplePerson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Row counts of {@link SamplePerson} without a table scan per call.
+ *
+ * The total is counted once and then kept up to date by
+ * {@link SamplePersonService} on every insert and delete. Rows written around
+ * the service, such as the demo data, are picked up by {@link #refresh()},
+ * which also runs periodically. Filtered counts are cached briefly by the
+ * filter, which must therefore be value-equal such as the
+ * {@link SamplePersonFilters}, and every write drops them. The cache of
+ * filtered counts is published as meters.
+ */
+@Service
+public class SamplePersonCountService implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamplePersonCountService.class);
+
+    private final SamplePersonRepository repository;
+    private final ExpiringCache<Specification<SamplePerson>, Long> filtered;
+    private final Duration ttl;
+
+    private long total = -1;
+
+    public SamplePersonCountService(SamplePersonRepository repository,
+                                    @Value("${htriggers.person.count.cache-size:256}") int cacheSize,
+                                    @Value("${htriggers.person.count.ttl:5s}") Duration ttl) {
+        this.repository = repository;
+        this.filtered = new ExpiringCache<>(cacheSize);
+        this.ttl = ttl;
+    }
+
+    /**
+     * The exact number of people, counted in the database only the first time.
+     */
+    public synchronized long count() {
+        if (total < 0) {
+            total = repository.count();
+        }
+        return total;
+    }
+
+    /**
+     * Counts the people matching the filter, at most the TTL old.
+     */
+    public long count(Specification<SamplePerson> filter) {
+        final ExpiringCache.Entry<Long> cached = filtered.get(filter);
+        if (cached != null) {
+            return cached.value();
+        }
+        final long count = repository.count(filter);
+        filtered.put(filter, count, ttl);
+        return count;
+    }
+
+    /**
+     * Like {@link #count(Specification)}, but settles for an expired count of
+     * the filter, for example to size a scrollbar.
+     */
+    public long estimate(Specification<SamplePerson> filter) {
+        final ExpiringCache.Entry<Long> stale = filtered.getStale(filter);
+        return stale != null ? stale.value() : count(filter);
+    }
+
+    synchronized void added() {
+        if (total >= 0) {
+            total++;
+        }
+        filtered.clear();
+    }
+
+    synchronized void removed() {
+        if (total > 0) {
+            total--;
+        }
+        filtered.clear();
+    }
+
+    /**
+     * Drops the filtered counts after an update, which leaves the total alone.
+     */
+    void changed() {
+        filtered.clear();
+    }
+
+    /**
+     * Counts the people in the database again.
+     */
+    @Scheduled(fixedDelayString = "${htriggers.person.count.refresh-interval:PT10M}",
+            initialDelayString = "${htriggers.person.count.refresh-interval:PT10M}")
+    public void refresh() {
+        final long counted = repository.count();
+        synchronized (this) {
+            if (total >= 0 && total != counted) {
+                LOGGER.debug("Corrected person count from {} to {}", total, counted);
+            }
+            total = counted;
+        }
+        filtered.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        filtered.bindTo(registry, "person.counts");
+    }
+}
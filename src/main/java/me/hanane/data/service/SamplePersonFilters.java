@@ -0,0 +1,75 @@
+package me.hanane.data.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import me.hanane.data.entity.SamplePerson;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters of {@link SamplePerson} listings. They are records, so equal filters
+ * are equal objects and can key cached results such as counts.
+ */
+public final class SamplePersonFilters {
+
+    private SamplePersonFilters() {
+    }
+
+    /**
+     * The filter for the people containing every word of the text in their
+     * name, email, occupation or role.
+     */
+    public static Matching matching(String text) {
+        final List<String> terms = new ArrayList<>();
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new Matching(terms);
+    }
+
+    /**
+     * The people with one of the ids.
+     */
+    public record WithIds(Set<Long> ids) implements Specification<SamplePerson> {
+
+        public WithIds {
+            ids = Set.copyOf(ids);
+        }
+
+        @Override
+        public Predicate toPredicate(Root<SamplePerson> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+            return root.get("id").in(ids);
+        }
+    }
+
+    /**
+     * The people containing every lower-case term in one of their searchable
+     * fields.
+     */
+    public record Matching(List<String> terms) implements Specification<SamplePerson> {
+
+        public Matching {
+            terms = List.copyOf(terms);
+        }
+
+        @Override
+        public Predicate toPredicate(Root<SamplePerson> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+            final List<Predicate> predicates = new ArrayList<>();
+            for (String term : terms) {
+                final String pattern = "%" + term + "%";
+                predicates.add(builder.or(Stream.of("firstName", "lastName", "email", "occupation", "role")
+                        .map(field -> builder.like(builder.lower(root.get(field)), pattern))
+                        .toArray(Predicate[]::new)));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        }
+    }
+}
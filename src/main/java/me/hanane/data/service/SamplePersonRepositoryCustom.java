@@ -0,0 +1,29 @@
+package me.hanane.data.service;
+
+import java.util.List;
+import me.hanane.data.entity.SamplePerson;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface SamplePersonRepositoryCustom {
+
+    /**
+     * Lists up to {@code limit} rows after the keyset in the sort order,
+     * without an offset or a count query.
+     *
+     * @param filter may be {@code null}
+     * @param sort   the sort including the id, see {@link Keyset#withId(Sort)}
+     * @param after  the position to list from, {@code null} for the first page
+     */
+    List<SamplePersonRow> findRowsAfter(Specification<SamplePerson> filter, Sort sort, Keyset after, int limit);
+
+    /**
+     * The keyset after the row at the zero-based index in the sort order,
+     * reading only the sort columns, or {@code null} if there are not that
+     * many rows. Listing after it continues at {@code index + 1}.
+     *
+     * @param filter may be {@code null}
+     * @param sort   the sort including the id, see {@link Keyset#withId(Sort)}
+     */
+    Keyset findKeysetAt(Specification<SamplePerson> filter, Sort sort, int index);
+}
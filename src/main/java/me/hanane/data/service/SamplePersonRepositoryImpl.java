@@ -0,0 +1,112 @@
+package me.hanane.data.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import me.hanane.data.entity.SamplePerson;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keyset queries for {@link SamplePersonRepository}.
+ *
+ * The rows after a keyset (a, b, id) are those with {@code a > :a}, or
+ * {@code a = :a and b > :b}, or {@code a = :a and b = :b and id > :id}, with
+ * the comparison flipped for descending columns. NULLs sort lowest, as in H2,
+ * so they come first in ascending and last in descending order. Jumping to an
+ * arbitrary position reads only the keyset of the row before it, still with
+ * an offset but without loading the rows skipped.
+ */
+public class SamplePersonRepositoryImpl implements SamplePersonRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SamplePersonRow> findRowsAfter(Specification<SamplePerson> filter, Sort sort, Keyset after,
+                                               int limit) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<SamplePersonRow> query = builder.createQuery(SamplePersonRow.class);
+        final Root<SamplePerson> root = query.from(SamplePerson.class);
+        query.select(builder.construct(SamplePersonRow.class, root.get("id"), root.get("firstName"),
+                root.get("lastName"), root.get("email"), root.get("phone"), root.get("dateOfBirth"),
+                root.get("occupation"), root.get("role"), root.get("important")));
+        where(builder, query, root, filter, sort, after);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Keyset findKeysetAt(Specification<SamplePerson> filter, Sort sort, int index) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<SamplePerson> root = query.from(SamplePerson.class);
+        query.multiselect(sort.stream().map(order -> root.get(order.getProperty())).toArray(Selection[]::new));
+        where(builder, query, root, filter, sort, null);
+        final List<Tuple> rows = entityManager.createQuery(query).setFirstResult(index).setMaxResults(1)
+                .getResultList();
+        return rows.isEmpty() ? null : new Keyset(Arrays.asList(rows.get(0).toArray()));
+    }
+
+    private static void where(CriteriaBuilder builder, CriteriaQuery<?> query, Root<SamplePerson> root,
+                              Specification<SamplePerson> filter, Sort sort, Keyset after) {
+        final List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            final Predicate predicate = filter.toPredicate(root, query, builder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (after != null) {
+            predicates.add(after(builder, root, sort, after));
+        }
+        query.where(predicates.toArray(Predicate[]::new)).orderBy(QueryUtils.toOrders(sort, root, builder));
+    }
+
+    private static Predicate after(CriteriaBuilder builder, Root<SamplePerson> root, Sort sort, Keyset keyset) {
+        final List<Sort.Order> orders = sort.toList();
+        if (orders.size() != keyset.values().size()) {
+            throw new IllegalArgumentException("The keyset does not match the sort " + sort);
+        }
+        final List<Predicate> alternatives = new ArrayList<>();
+        final List<Predicate> equalSoFar = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            final Path<Comparable<Object>> path = root.get(orders.get(i).getProperty());
+            final Object value = keyset.values().get(i);
+            final List<Predicate> alternative = new ArrayList<>(equalSoFar);
+            alternative.add(beyond(builder, path, value, orders.get(i).isAscending()));
+            alternatives.add(builder.and(alternative.toArray(Predicate[]::new)));
+            equalSoFar.add(value == null ? builder.isNull(path) : builder.equal(path, value));
+        }
+        return builder.or(alternatives.toArray(Predicate[]::new));
+    }
+
+    /**
+     * Whether a value comes after the given one in the column's direction.
+     */
+    @SuppressWarnings("unchecked")
+    private static Predicate beyond(CriteriaBuilder builder, Expression<Comparable<Object>> path, Object value,
+                                    boolean ascending) {
+        if (value == null) {
+            // everything follows a NULL ascending, nothing does descending
+            return ascending ? builder.isNotNull(path) : builder.disjunction();
+        }
+        final Comparable<Object> comparable = (Comparable<Object>) value;
+        return ascending
+                ? builder.greaterThan(path, comparable)
+                : builder.or(builder.lessThan(path, comparable), builder.isNull(path));
+    }
+}
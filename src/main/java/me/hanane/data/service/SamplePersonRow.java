@@ -0,0 +1,13 @@
+package me.hanane.data.service;
+
+import java.time.LocalDate;
+import me.hanane.data.entity.SamplePerson;
+
+/**
+ * Read-only projection of the {@link SamplePerson} columns a listing shows.
+ * Rows are built straight from the query result, so they are never managed,
+ * dirty-checked or version-checked.
+ */
+public record SamplePersonRow(Long id, String firstName, String lastName, String email, String phone,
+                              LocalDate dateOfBirth, String occupation, String role, boolean important) {
+}
@@ -0,0 +1,282 @@
+package me.hanane.data.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import me.hanane.data.entity.SamplePerson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index over the first name, last name, email, occupation and role
+ * of every person, used to narrow a search down to candidate ids before
+ * querying the database.
+ *
+ * The fields are split into lower-case words. Each word maps to the people
+ * using it, and each of its substrings of up to three characters to the words
+ * containing it. A search term matches the words containing it, the same as
+ * {@code LIKE '%term%'} on the fields: a term of up to three characters is
+ * looked up directly, a longer one by checking the words of its rarest
+ * trigram. A person matches a search when every term matches one of their
+ * words.
+ *
+ * The index is built from the database on startup and kept up to date by
+ * {@link SamplePersonService}.
+ */
+@Component
+public class SamplePersonSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamplePersonSearchIndex.class);
+    private static final int GRAM = 3;
+    private static final int LOAD_BATCH = 1000;
+
+    private final SamplePersonRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private Set<Long> writtenDuringLoad;
+
+    public SamplePersonSearchIndex(SamplePersonRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Indexes every person, reading the rows a batch at a time into a new
+     * index that replaces the current one once complete. People written in
+     * the meantime are taken from the current index, since the rows read may
+     * predate the write.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        final Index loaded = new Index();
+        try {
+            final Sort sort = Sort.by("id");
+            Keyset after = null;
+            List<SamplePersonRow> rows;
+            do {
+                rows = repository.findRowsAfter(null, sort, after, LOAD_BATCH);
+                for (SamplePersonRow row : rows) {
+                    loaded.put(row.id(),
+                            words(row.firstName(), row.lastName(), row.email(), row.occupation(), row.role()));
+                }
+                if (!rows.isEmpty()) {
+                    after = Keyset.after(rows.get(rows.size() - 1), sort);
+                }
+            } while (rows.size() == LOAD_BATCH);
+        } catch (RuntimeException exception) {
+            lock.writeLock().lock();
+            try {
+                writtenDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw exception;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : writtenDuringLoad) {
+                final Set<String> current = index.wordsById.get(id);
+                if (current == null) {
+                    loaded.unindex(id);
+                } else {
+                    loaded.put(id, current);
+                }
+            }
+            index = loaded;
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Indexed {} people, {} words", size(), wordCount());
+    }
+
+    public void put(SamplePerson person) {
+        final Set<String> personWords = words(person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getOccupation(), person.getRole());
+        lock.writeLock().lock();
+        try {
+            index.put(person.getId(), personWords);
+            written(person.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.unindex(id);
+            written(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The ids of the people matching every term of the text, or {@code null}
+     * if the text has no terms and so matches everyone.
+     */
+    public Set<Long> search(String text) {
+        final Set<String> terms = words(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            for (String term : terms) {
+                final Set<Long> matches = index.matches(term);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.retainAll(matches);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.wordsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int wordCount() {
+        lock.readLock().lock();
+        try {
+            return index.words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void written(Long id) {
+        if (writtenDuringLoad != null) {
+            writtenDuringLoad.add(id);
+        }
+    }
+
+    private static Set<String> words(String... fields) {
+        final Set<String> result = new HashSet<>();
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            for (String word : field.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    result.add(word);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The words, grams and people. Not thread-safe: the current one is
+     * guarded by the lock, one being loaded is used by the loading thread
+     * only.
+     */
+    private static final class Index {
+
+        private final Map<String, Set<Long>> words = new HashMap<>();
+        private final Map<String, Set<String>> grams = new HashMap<>();
+        private final Map<Long, Set<String>> wordsById = new HashMap<>();
+
+        void put(Long id, Set<String> personWords) {
+            unindex(id);
+            wordsById.put(id, personWords);
+            for (String word : personWords) {
+                final Set<Long> ids = words.get(word);
+                if (ids == null) {
+                    words.put(word, new HashSet<>(Set.of(id)));
+                    for (String gram : grams(word)) {
+                        grams.computeIfAbsent(gram, key -> new HashSet<>()).add(word);
+                    }
+                } else {
+                    ids.add(id);
+                }
+            }
+        }
+
+        void unindex(Long id) {
+            final Set<String> previous = wordsById.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String word : previous) {
+                final Set<Long> ids = words.get(word);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    words.remove(word);
+                    for (String gram : grams(word)) {
+                        final Set<String> gramWords = grams.get(gram);
+                        gramWords.remove(word);
+                        if (gramWords.isEmpty()) {
+                            grams.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+
+        Set<Long> matches(String term) {
+            final Set<Long> ids = new HashSet<>();
+            if (term.length() <= GRAM) {
+                for (String word : grams.getOrDefault(term, Set.of())) {
+                    ids.addAll(words.get(word));
+                }
+                return ids;
+            }
+            Set<String> candidates = null;
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                final Set<String> gramWords = grams.getOrDefault(term.substring(i, i + GRAM), Set.of());
+                if (candidates == null || gramWords.size() < candidates.size()) {
+                    candidates = gramWords;
+                }
+            }
+            for (String word : candidates) {
+                if (word.contains(term)) {
+                    ids.addAll(words.get(word));
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * The distinct substrings of the word of one up to {@link #GRAM}
+         * characters.
+         */
+        private static Set<String> grams(String word) {
+            final Set<String> result = new HashSet<>();
+            for (int length = 1; length <= GRAM; length++) {
+                for (int i = 0; i + length <= word.length(); i++) {
+                    result.add(word.substring(i, i + length));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,31 +1,73 @@
 package me.hanane.data.service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import me.hanane.data.entity.SamplePerson;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SamplePersonService {
 
     private final SamplePersonRepository repository;
+    private final SamplePersonCountService counts;
+    private final SamplePersonCache cache;
+    private final SamplePersonSearchIndex searchIndex;
+    private final int maxCandidates;
 
-    public SamplePersonService(SamplePersonRepository repository) {
+    public SamplePersonService(SamplePersonRepository repository, SamplePersonCountService counts,
+                               SamplePersonCache cache, SamplePersonSearchIndex searchIndex,
+                               @Value("${htriggers.person.search.max-candidates:1000}") int maxCandidates) {
         this.repository = repository;
+        this.counts = counts;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.maxCandidates = maxCandidates;
     }
 
+    /**
+     * Returns a detached copy of the person, from the cache if possible.
+     */
     public Optional<SamplePerson> get(Long id) {
-        return repository.findById(id);
+        return cache.get(id, () -> repository.findById(id));
     }
 
     public SamplePerson update(SamplePerson entity) {
-        return repository.save(entity);
+        final boolean inserted = entity.getId() == null;
+        final SamplePerson saved;
+        try {
+            saved = repository.save(entity);
+        } catch (ObjectOptimisticLockingFailureException exception) {
+            // the cached version is outdated as well
+            cache.invalidate(entity.getId());
+            throw exception;
+        }
+        cache.updated(saved);
+        searchIndex.put(saved);
+        if (inserted) {
+            counts.added();
+        } else {
+            // the person may now match other filters
+            counts.changed();
+        }
+        return saved;
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        try {
+            // throws if there is no such person, which leaves the count alone
+            repository.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+        searchIndex.remove(id);
+        counts.removed();
     }
 
     public Page<SamplePerson> list(Pageable pageable) {
@@ -36,8 +78,85 @@ public class SamplePersonService {
         return repository.findAll(filter, pageable);
     }
 
+    /**
+     * Lists read-only rows for display after the keyset, see
+     * {@link SamplePersonRepositoryCustom#findRowsAfter}, caching unfiltered
+     * pages. Open a row for editing with {@link #get(Long)}.
+     */
+    public List<SamplePersonRow> listRows(Sort sort, Keyset after, int limit) {
+        final Sort withId = Keyset.withId(sort);
+        return cache.page(withId, after, limit, () -> repository.findRowsAfter(null, withId, after, limit));
+    }
+
+    public List<SamplePersonRow> listRows(Sort sort, Keyset after, int limit, Specification<SamplePerson> filter) {
+        return repository.findRowsAfter(filter, Keyset.withId(sort), after, limit);
+    }
+
+    /**
+     * Lists rows of the people matching every word of the search text in
+     * their name, email, occupation or role, narrowed down to candidate ids
+     * by the {@link SamplePersonSearchIndex}. When there are too many
+     * candidates for an id list, the database is searched instead, see
+     * {@link SamplePersonFilters}.
+     */
+    public List<SamplePersonRow> search(String text, Sort sort, Keyset after, int limit) {
+        final Set<Long> ids = searchIndex.search(text);
+        if (ids == null) {
+            return listRows(sort, after, limit);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return listRows(sort, after, limit, filter(text, ids));
+    }
+
+    /**
+     * The keyset after the search result at the zero-based index, see
+     * {@link SamplePersonRepositoryCustom#findKeysetAt}.
+     */
+    public Keyset searchKeysetAt(String text, Sort sort, int index) {
+        final Set<Long> ids = searchIndex.search(text);
+        if (ids != null && ids.isEmpty()) {
+            return null;
+        }
+        return repository.findKeysetAt(ids == null ? null : filter(text, ids), Keyset.withId(sort), index);
+    }
+
+    /**
+     * The number of search results, see {@link #search}.
+     */
+    public int searchCount(String text) {
+        return searchCount(text, false);
+    }
+
+    /**
+     * Like {@link #searchCount(String)}, but settles for an expired count,
+     * which is good enough to size a grid.
+     */
+    public int searchEstimate(String text) {
+        return searchCount(text, true);
+    }
+
+    private int searchCount(String text, boolean estimate) {
+        final Set<Long> ids = searchIndex.search(text);
+        if (ids == null) {
+            return count();
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        final Specification<SamplePerson> filter = filter(text, ids);
+        return (int) (estimate ? counts.estimate(filter) : counts.count(filter));
+    }
+
+    private Specification<SamplePerson> filter(String text, Set<Long> ids) {
+        return ids.size() <= maxCandidates
+                ? new SamplePersonFilters.WithIds(ids)
+                : SamplePersonFilters.matching(text);
+    }
+
     public int count() {
-        return (int) repository.count();
+        return (int) counts.count();
     }
 
 }
@@ -0,0 +1,15 @@
+package me.hanane.data.service;
+
+import java.util.List;
+import me.hanane.data.entity.Trigger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+public interface TriggerRepository
+        extends
+            JpaRepository<Trigger, Long>,
+            JpaSpecificationExecutor<Trigger> {
+
+    List<Trigger> findByEnabledTrue();
+
+}
@@ -0,0 +1,53 @@
+package me.hanane.data.service;
+
+import java.util.Optional;
+import me.hanane.data.entity.Trigger;
+import me.hanane.trigger.TriggerEngine;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TriggerService {
+
+    private final TriggerRepository repository;
+    private final TriggerEngine engine;
+
+    public TriggerService(TriggerRepository repository, TriggerEngine engine) {
+        this.repository = repository;
+        this.engine = engine;
+    }
+
+    public Optional<Trigger> get(Long id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the trigger's condition is invalid
+     */
+    public Trigger update(Trigger entity) {
+        engine.validate(entity);
+        final Trigger saved = repository.save(entity);
+        engine.register(saved);
+        return saved;
+    }
+
+    public void delete(Long id) {
+        repository.deleteById(id);
+        engine.unregister(id);
+    }
+
+    public Page<Trigger> list(Pageable pageable) {
+        return repository.findAll(pageable);
+    }
+
+    public Page<Trigger> list(Pageable pageable, Specification<Trigger> filter) {
+        return repository.findAll(filter, pageable);
+    }
+
+    public int count() {
+        return (int) repository.count();
+    }
+
+}
@@ -0,0 +1,191 @@
+package me.hanane.location;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Offline list of known places, used for city autocomplete and to resolve
+ * exact matches without calling the geocoding provider.
+ *
+ * Names are indexed by their normalized form in a {@link PrefixTrie}; place
+ * attributes are kept in parallel arrays indexed by place number, with the
+ * places of each name sorted by population, largest first.
+ */
+@Component
+public class Gazetteer {
+
+    private static final Map<String, String> COUNTRY_CODES = countryCodes();
+
+    private final PrefixTrie names;
+    private final int[] placesStart;
+    private final String[] cities;
+    private final String[] states;
+    private final String[] countries;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] populations;
+
+    public Gazetteer(@Value("${htriggers.gazetteer.file:classpath:gazetteer/cities.tsv}") Resource file) {
+        final List<String[]> rows = read(file);
+        final int count = rows.size();
+
+        names = new PrefixTrie(rows.stream().map(row -> LocationKey.normalize(row[0])).toArray(String[]::new));
+
+        // order places by name index, then by descending population
+        final Integer[] order = IntStream.range(0, count).boxed().toArray(Integer[]::new);
+        final int[] nameOf = rows.stream().mapToInt(row -> names.indexOf(LocationKey.normalize(row[0]))).toArray();
+        final int[] population = rows.stream().mapToInt(row -> Integer.parseInt(row[5])).toArray();
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> nameOf[i])
+                .thenComparingInt(i -> -population[i]));
+
+        cities = new String[count];
+        states = new String[count];
+        countries = new String[count];
+        latitudes = new double[count];
+        longitudes = new double[count];
+        populations = new int[count];
+        placesStart = new int[names.keyCount() + 1];
+
+        for (int place = 0; place < count; place++) {
+            final String[] row = rows.get(order[place]);
+            cities[place] = row[0];
+            states[place] = row[1].isEmpty() ? null : row[1];
+            countries[place] = row[2];
+            latitudes[place] = Double.parseDouble(row[3]);
+            longitudes[place] = Double.parseDouble(row[4]);
+            populations[place] = population[order[place]];
+            placesStart[nameOf[order[place]] + 1]++;
+        }
+        for (int name = 0; name < names.keyCount(); name++) {
+            placesStart[name + 1] += placesStart[name];
+        }
+    }
+
+    public int size() {
+        return cities.length;
+    }
+
+    /**
+     * Returns up to {@code limit} places whose name starts with the prefix,
+     * largest population first.
+     */
+    public List<Place> suggest(String prefix, int limit) {
+        final String normalized = LocationKey.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        final int[] range = names.prefixRange(normalized);
+        final int from = placesStart[range[0]];
+        final int to = placesStart[range[1]];
+
+        // smallest population on top, so the heap keeps the largest `limit` places
+        final PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingInt(place -> populations[place]));
+        for (int place = from; place < to; place++) {
+            best.add(place);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        final List<Place> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(0, place(best.poll()));
+        }
+        return result;
+    }
+
+    /**
+     * Resolves a city locally when its name is known. A blank state or country
+     * matches any, and the most populated matching place wins. The country may
+     * be given as its ISO code or its English name, "MA" or "Morocco".
+     */
+    public Optional<Geolocation> resolve(String city, String state, String country) {
+        final int name = names.indexOf(LocationKey.normalize(city));
+        if (name < 0) {
+            return Optional.empty();
+        }
+        final String normalizedState = LocationKey.normalize(state);
+        final String normalizedCountry = countryCode(LocationKey.normalize(country));
+        for (int place = placesStart[name]; place < placesStart[name + 1]; place++) {
+            if ((normalizedState.isEmpty() || normalizedState.equals(LocationKey.normalize(states[place])))
+                    && (normalizedCountry.isEmpty() || normalizedCountry.equals(LocationKey.normalize(countries[place])))) {
+                return Optional.of(place(place).toGeolocation());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The lower-case ISO code of a normalized country name, or the value as is
+     * if it is a code already or not a known name.
+     */
+    static String countryCode(String normalizedCountry) {
+        return COUNTRY_CODES.getOrDefault(normalizedCountry, normalizedCountry);
+    }
+
+    private static Map<String, String> countryCodes() {
+        final Map<String, String> codes = new HashMap<>();
+        for (String code : Locale.getISOCountries()) {
+            final String name = new Locale("", code).getDisplayCountry(Locale.ENGLISH);
+            codes.put(LocationKey.normalize(name), code.toLowerCase(Locale.ROOT));
+        }
+        return Map.copyOf(codes);
+    }
+
+    private Place place(int place) {
+        return new Place(cities[place], states[place], countries[place], latitudes[place], longitudes[place],
+                populations[place]);
+    }
+
+    private List<String[]> read(Resource file) {
+        final List<String[]> rows = new ArrayList<>();
+        try (InputStream stream = file.getInputStream();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] row = line.split("\t", -1);
+                if (row.length < 6) {
+                    throw new IllegalStateException("Malformed gazetteer line: " + line);
+                }
+                rows.add(row);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not read gazetteer " + file, exception);
+        }
+        return rows;
+    }
+
+    public record Place(String city, String state, String country, double latitude, double longitude, int population) {
+
+        public Geolocation toGeolocation() {
+            return new Geolocation(city, state, country, longitude, latitude);
+        }
+
+        public String label() {
+            return Stream.of(city, state, country)
+                    .filter(part -> part != null && !part.isBlank())
+                    .collect(Collectors.joining(", "));
+        }
+    }
+}
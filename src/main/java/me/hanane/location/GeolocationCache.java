@@ -0,0 +1,117 @@
+package me.hanane.location;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import me.hanane.cache.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU/TTL cache of geocoding results keyed by {@link LocationKey}.
+ *
+ * Cities that could not be resolved are cached too, with a shorter TTL. The
+ * cache is written to disk on shutdown and read back on startup so a restarted
+ * node does not have to geocode everything again.
+ */
+@Component
+public class GeolocationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeolocationCache.class);
+
+    private final ExpiringCache<LocationKey, Geolocation> cache;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final String snapshotFile;
+    private final Gson gson = new Gson();
+
+    public GeolocationCache(@Value("${htriggers.geolocation.cache.max-size:10000}") int maxSize,
+                            @Value("${htriggers.geolocation.cache.ttl:30d}") Duration ttl,
+                            @Value("${htriggers.geolocation.cache.negative-ttl:10m}") Duration negativeTtl,
+                            @Value("${htriggers.geolocation.cache.snapshot-file:}") String snapshotFile) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Returns the fresh entry for the key, or {@code null} on a miss. A cached
+     * negative result is an entry with a {@code null} value.
+     */
+    public ExpiringCache.Entry<Geolocation> get(LocationKey key) {
+        return cache.get(key);
+    }
+
+    public void put(LocationKey key, Optional<Geolocation> location) {
+        cache.put(key, location.orElse(null), location.isPresent() ? ttl : negativeTtl);
+    }
+
+    public ExpiringCache<LocationKey, Geolocation> cache() {
+        return cache;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (snapshotFile.isBlank() || !Files.isRegularFile(Path.of(snapshotFile))) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(Path.of(snapshotFile), StandardCharsets.UTF_8)) {
+            final List<SnapshotEntry> entries = gson.fromJson(reader, new TypeToken<List<SnapshotEntry>>() {}.getType());
+            if (entries == null) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            entries.stream()
+                    .filter(entry -> entry.expiresAt() > now)
+                    .forEach(entry -> cache.put(entry.key(), new ExpiringCache.Entry<>(entry.location(), entry.expiresAt())));
+            LOGGER.info("Loaded {} geolocation cache entries from {}", cache.size(), snapshotFile);
+        } catch (IOException | JsonParseException exception) {
+            LOGGER.warn("Could not load geolocation cache snapshot from {}", snapshotFile, exception);
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        if (snapshotFile.isBlank()) {
+            return;
+        }
+        final List<SnapshotEntry> entries = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        cache.snapshot().forEach((key, entry) -> {
+            if (!entry.isExpired(now)) {
+                entries.add(new SnapshotEntry(key, entry.value(), entry.expiresAt()));
+            }
+        });
+        try {
+            final Path target = Path.of(snapshotFile).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            final Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                gson.toJson(entries, writer);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Saved {} geolocation cache entries to {}", entries.size(), snapshotFile);
+        } catch (IOException exception) {
+            LOGGER.warn("Could not save geolocation cache snapshot to {}", snapshotFile, exception);
+        }
+    }
+
+    private record SnapshotEntry(LocationKey key, Geolocation location, long expiresAt) {
+    }
+}
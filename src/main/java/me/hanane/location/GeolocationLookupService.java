@@ -0,0 +1,73 @@
+package me.hanane.location;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.resilience.Resilience;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Front for {@link GeolocationService} exposing both the blocking lookup and a
+ * {@link CompletableFuture} variant that runs on the provider executor.
+ * Places known to the offline {@link Gazetteer} are resolved locally, other
+ * results are served from the {@link GeolocationCache} whenever possible.
+ * Upstream calls are guarded by the geolocation {@link Resilience}, and an
+ * expired cache entry is served when they fail or the breaker is open.
+ * Newly resolved locations are added to the {@link SpatialIndex}.
+ */
+@Service
+public class GeolocationLookupService {
+
+    private final GeolocationService geolocationService;
+    private final GeolocationCache cache;
+    private final Gazetteer gazetteer;
+    private final SpatialIndex spatialIndex;
+    private final Executor executor;
+    private final Resilience resilience;
+
+    public GeolocationLookupService(GeolocationService geolocationService,
+                                    GeolocationCache cache,
+                                    Gazetteer gazetteer,
+                                    SpatialIndex spatialIndex,
+                                    @Qualifier("providerExecutor") Executor executor,
+                                    @Qualifier("geolocationResilience") Resilience resilience) {
+        this.geolocationService = geolocationService;
+        this.cache = cache;
+        this.gazetteer = gazetteer;
+        this.spatialIndex = spatialIndex;
+        this.executor = executor;
+        this.resilience = resilience;
+    }
+
+    public Optional<Geolocation> get(String city, String state, String country) {
+        return getAsync(city, state, country).join();
+    }
+
+    public CompletableFuture<Optional<Geolocation>> getAsync(String city, String state, String country) {
+        final Optional<Geolocation> known = gazetteer.resolve(city, state, country);
+        if (known.isPresent()) {
+            return CompletableFuture.completedFuture(known);
+        }
+        final LocationKey key = LocationKey.of(city, state, country);
+        final ExpiringCache.Entry<Geolocation> cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(cached.value()));
+        }
+        return resilience.call(() -> Resilience.supplyInterruptibly(() -> geolocationService.get(city, state, country),
+                        executor))
+                .thenApply(location -> {
+                    cache.put(key, location);
+                    location.ifPresent(spatialIndex::add);
+                    return location;
+                })
+                .exceptionallyCompose(throwable -> {
+                    final ExpiringCache.Entry<Geolocation> stale = cache.cache().getStale(key);
+                    if (stale == null) {
+                        return CompletableFuture.failedFuture(throwable);
+                    }
+                    return CompletableFuture.completedFuture(Optional.ofNullable(stale.value()));
+                });
+    }
+}
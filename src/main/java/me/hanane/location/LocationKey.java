@@ -0,0 +1,28 @@
+package me.hanane.location;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized city/state/country triple, so that "  São Paulo" and "sao paulo"
+ * resolve to the same cache entry.
+ */
+public record LocationKey(String city, String state, String country) {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public static LocationKey of(String city, String state, String country) {
+        return new LocationKey(normalize(city), normalize(state), normalize(country));
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        final String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,129 @@
+package me.hanane.location;
+
+import java.util.Arrays;
+
+/**
+ * Immutable prefix trie over a set of strings, stored in flat primitive arrays.
+ *
+ * Nodes are laid out breadth first so the children of a node are contiguous
+ * and sorted by label, which allows a binary search per character. Keys are
+ * numbered in sorted order, so every node covers a contiguous range of keys:
+ * the keys starting with a prefix are {@code [keyStart, keyEnd)} of the node
+ * the prefix leads to.
+ */
+public class PrefixTrie {
+
+    private final String[] keys;
+
+    private char[] labels = new char[64];
+    private int[] firstChild = new int[64];
+    private int[] childCount = new int[64];
+    private int[] keyStart = new int[64];
+    private int[] keyEnd = new int[64];
+    private int[] terminal = new int[64];
+    private int size;
+
+    /**
+     * @param keys the keys, which are sorted and deduplicated by the trie
+     */
+    public PrefixTrie(String[] keys) {
+        this.keys = Arrays.stream(keys).distinct().sorted().toArray(String[]::new);
+        build();
+    }
+
+    public int keyCount() {
+        return keys.length;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the index of the key, or {@code -1} if it is not in the trie.
+     */
+    public int indexOf(String key) {
+        final int node = find(key);
+        return node < 0 ? -1 : terminal[node];
+    }
+
+    /**
+     * Returns the {@code [start, end)} range of key indexes starting with the
+     * prefix, an empty range if there are none.
+     */
+    public int[] prefixRange(String prefix) {
+        final int node = find(prefix);
+        return node < 0 ? new int[]{0, 0} : new int[]{keyStart[node], keyEnd[node]};
+    }
+
+    private int find(String key) {
+        int node = 0;
+        for (int depth = 0; depth < key.length(); depth++) {
+            final int from = firstChild[node];
+            final int index = Arrays.binarySearch(labels, from, from + childCount[node], key.charAt(depth));
+            if (index < 0) {
+                return -1;
+            }
+            node = index;
+        }
+        return node;
+    }
+
+    private void build() {
+        // queue entries are node indexes, each node already knows its key range
+        final int root = addNode('\0', 0, keys.length);
+        int[] depths = new int[64];
+        depths[root] = 0;
+
+        for (int node = 0; node < size; node++) {
+            final int depth = depths[node];
+            int index = keyStart[node];
+            final int end = keyEnd[node];
+            if (index < end && keys[index].length() == depth) {
+                terminal[node] = index++;
+            }
+            firstChild[node] = size;
+            while (index < end) {
+                final char label = keys[index].charAt(depth);
+                int next = index;
+                while (next < end && keys[next].charAt(depth) == label) {
+                    next++;
+                }
+                final int child = addNode(label, index, next);
+                if (child >= depths.length) {
+                    depths = Arrays.copyOf(depths, depths.length * 2);
+                }
+                depths[child] = depth + 1;
+                childCount[node]++;
+                index = next;
+            }
+        }
+        trim();
+    }
+
+    private int addNode(char label, int start, int end) {
+        if (size == labels.length) {
+            final int capacity = size * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            keyStart = Arrays.copyOf(keyStart, capacity);
+            keyEnd = Arrays.copyOf(keyEnd, capacity);
+            terminal = Arrays.copyOf(terminal, capacity);
+        }
+        labels[size] = label;
+        keyStart[size] = start;
+        keyEnd[size] = end;
+        terminal[size] = -1;
+        return size++;
+    }
+
+    private void trim() {
+        labels = Arrays.copyOf(labels, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        childCount = Arrays.copyOf(childCount, size);
+        keyStart = Arrays.copyOf(keyStart, size);
+        keyEnd = Arrays.copyOf(keyEnd, size);
+        terminal = Arrays.copyOf(terminal, size);
+    }
+}
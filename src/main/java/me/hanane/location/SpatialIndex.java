@@ -0,0 +1,257 @@
+package me.hanane.location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the resolved and watched locations, bucketed by
+ * fixed-size latitude/longitude cells.
+ *
+ * Coordinates are kept in primitive arrays indexed by point number, and each
+ * bucket holds the point numbers that fall into it. Nearest-neighbour and
+ * radius queries only visit the buckets overlapping the query's bounding box.
+ *
+ * Locations are reference counted: every {@link #add} needs a matching
+ * {@link #remove}, and a location leaves the index with its last reference,
+ * the last point taking over its number. Snapping never adds anything, so
+ * looking up arbitrary coordinates does not grow the index.
+ */
+@Component
+public class SpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double bucketSize;
+    private final double snapRadiusKm;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, int[]> buckets = new HashMap<>();
+    private final Map<Geolocation, Integer> points = new HashMap<>();
+
+    private double[] latitudes = new double[64];
+    private double[] longitudes = new double[64];
+    private Geolocation[] locations = new Geolocation[64];
+    private int[] references = new int[64];
+    private int size;
+
+    public SpatialIndex(@Value("${htriggers.location.index.bucket-size:0.5}") double bucketSize,
+                        @Value("${htriggers.location.index.snap-radius-km:2}") double snapRadiusKm) {
+        this.bucketSize = bucketSize;
+        this.snapRadiusKm = snapRadiusKm;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Snaps the location within the configured radius.
+     */
+    public Geolocation snap(Geolocation location) {
+        return snap(location, snapRadiusKm);
+    }
+
+    /**
+     * Returns the closest indexed location within {@code radiusKm}, or the
+     * location itself when there is none.
+     */
+    public Geolocation snap(Geolocation location, double radiusKm) {
+        return nearest(location.latitude(), location.longitude(), radiusKm).orElse(location);
+    }
+
+    /**
+     * Adds a reference to the location, indexing it if it is new.
+     */
+    public void add(Geolocation location) {
+        lock.writeLock().lock();
+        try {
+            final Integer point = points.get(location);
+            if (point != null) {
+                references[point]++;
+                return;
+            }
+            index(location);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a reference to the location, removing it from the index with the
+     * last one.
+     */
+    public void remove(Geolocation location) {
+        lock.writeLock().lock();
+        try {
+            final Integer point = points.get(location);
+            if (point != null && --references[point] == 0) {
+                unindex(point);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Geolocation> nearest(double latitude, double longitude, double radiusKm) {
+        lock.readLock().lock();
+        try {
+            final int point = nearestPoint(latitude, longitude, radiusKm);
+            return point < 0 ? Optional.empty() : Optional.of(locations[point]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every indexed location within {@code radiusKm}, closest first.
+     */
+    public List<Geolocation> within(double latitude, double longitude, double radiusKm) {
+        final List<double[]> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachCandidate(latitude, longitude, radiusKm, point -> {
+                final double distance = distanceKm(latitude, longitude, latitudes[point], longitudes[point]);
+                if (distance <= radiusKm) {
+                    matches.add(new double[]{distance, point});
+                }
+            });
+            matches.sort((first, second) -> Double.compare(first[0], second[0]));
+            final List<Geolocation> result = new ArrayList<>(matches.size());
+            matches.forEach(match -> result.add(locations[(int) match[1]]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        final double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+        final double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+        final double a = Math.pow(Math.sin(deltaLatitude / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(deltaLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int nearestPoint(double latitude, double longitude, double radiusKm) {
+        final int[] best = {-1};
+        final double[] bestDistance = {radiusKm};
+        forEachCandidate(latitude, longitude, radiusKm, point -> {
+            final double distance = distanceKm(latitude, longitude, latitudes[point], longitudes[point]);
+            if (distance <= bestDistance[0]) {
+                best[0] = point;
+                bestDistance[0] = distance;
+            }
+        });
+        return best[0];
+    }
+
+    private void forEachCandidate(double latitude, double longitude, double radiusKm, PointConsumer consumer) {
+        final double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        final double longitudeSpan = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        final int fromLatitude = index(latitude - latitudeSpan), toLatitude = index(latitude + latitudeSpan);
+        final int fromLongitude = index(longitude - longitudeSpan), toLongitude = index(longitude + longitudeSpan);
+
+        for (int row = fromLatitude; row <= toLatitude; row++) {
+            for (int column = fromLongitude; column <= toLongitude; column++) {
+                final int[] bucket = buckets.get(key(row, column));
+                if (bucket == null) {
+                    continue;
+                }
+                // the first slot holds the number of points in the bucket
+                for (int i = 1; i <= bucket[0]; i++) {
+                    consumer.accept(bucket[i]);
+                }
+            }
+        }
+    }
+
+    private void index(Geolocation location) {
+        if (size == locations.length) {
+            latitudes = Arrays.copyOf(latitudes, size * 2);
+            longitudes = Arrays.copyOf(longitudes, size * 2);
+            locations = Arrays.copyOf(locations, size * 2);
+            references = Arrays.copyOf(references, size * 2);
+        }
+        final int point = size++;
+        latitudes[point] = location.latitude();
+        longitudes[point] = location.longitude();
+        locations[point] = location;
+        references[point] = 1;
+        points.put(location, point);
+        addToBucket(point);
+    }
+
+    /**
+     * Removes the point, moving the last point into its number.
+     */
+    private void unindex(int point) {
+        removeFromBucket(point);
+        points.remove(locations[point]);
+        final int last = --size;
+        if (point != last) {
+            removeFromBucket(last);
+            latitudes[point] = latitudes[last];
+            longitudes[point] = longitudes[last];
+            locations[point] = locations[last];
+            references[point] = references[last];
+            points.put(locations[point], point);
+            addToBucket(point);
+        }
+        locations[last] = null;
+    }
+
+    private void addToBucket(int point) {
+        final long key = bucketKey(point);
+        int[] bucket = buckets.getOrDefault(key, new int[4]);
+        if (bucket[0] + 1 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[++bucket[0]] = point;
+        buckets.put(key, bucket);
+    }
+
+    private void removeFromBucket(int point) {
+        final long key = bucketKey(point);
+        final int[] bucket = buckets.get(key);
+        for (int i = 1; i <= bucket[0]; i++) {
+            if (bucket[i] == point) {
+                bucket[i] = bucket[bucket[0]--];
+                break;
+            }
+        }
+        if (bucket[0] == 0) {
+            buckets.remove(key);
+        }
+    }
+
+    private long bucketKey(int point) {
+        return key(index(latitudes[point]), index(longitudes[point]));
+    }
+
+    private int index(double coordinate) {
+        return (int) Math.floor(coordinate / bucketSize);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    private interface PointConsumer {
+        void accept(int point);
+    }
+}
@@ -0,0 +1,11 @@
+package me.hanane.resilience;
+
+/**
+ * Thrown instead of calling upstream while the circuit breaker is open.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String name) {
+        super("Circuit breaker '" + name + "' is open");
+    }
+}
@@ -0,0 +1,114 @@
+package me.hanane.resilience;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * The outcomes of the last {@code windowSize} calls are kept in a ring. Once at
+ * least {@code minimumCalls} were recorded and the failure rate reaches the
+ * threshold, the breaker opens and rejects calls for {@code openDuration}.
+ * After that a single probe call is let through: success closes the breaker,
+ * failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failureCount;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Returns whether a call may go upstream right now.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = false;
+                // fall through to let the probe call go
+            case HALF_OPEN:
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && (double) failureCount / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[position]) {
+                failureCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        position = (position + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probing = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failureCount = 0;
+        probing = false;
+    }
+}
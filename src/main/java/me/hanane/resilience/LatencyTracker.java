@@ -0,0 +1,45 @@
+package me.hanane.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the last N successful calls to estimate percentiles.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int position;
+    private int recorded;
+
+    public LatencyTracker(int size) {
+        this.samples = new long[size];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[position] = nanos;
+        position = (position + 1) % samples.length;
+        if (recorded < samples.length) {
+            recorded++;
+        }
+    }
+
+    public synchronized int count() {
+        return recorded;
+    }
+
+    /**
+     * Returns the given percentile in nanoseconds, or {@code -1} without samples.
+     */
+    public long percentile(double percentile) {
+        final long[] sorted;
+        synchronized (this) {
+            if (recorded == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, recorded);
+        }
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
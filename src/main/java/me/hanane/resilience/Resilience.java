@@ -0,0 +1,159 @@
+package me.hanane.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Deadline, circuit breaker and optional request hedging around calls to one
+ * upstream provider.
+ *
+ * With hedging enabled, a duplicate call is started once the first one has
+ * been running longer than the observed p95 latency, and whichever answers
+ * first wins. At most {@code maxHedges} duplicates are in flight at a time, so
+ * a slow provider cannot double the load on it. Only use it for idempotent
+ * calls.
+ *
+ * Once the result is settled, by an answer or by the deadline, the attempts
+ * still running are cancelled. Calls must stop when their future is
+ * cancelled, as the provider clients and {@link #supplyInterruptibly} do, so
+ * an attempt past the deadline never keeps holding a connection or a thread.
+ */
+public class Resilience {
+
+    private static final int HEDGE_MINIMUM_SAMPLES = 20;
+
+    private final String name;
+    private final CircuitBreaker breaker;
+    private final LatencyTracker latencies;
+    private final Duration deadline;
+    private final boolean hedging;
+    private final Semaphore hedges;
+
+    public Resilience(String name, CircuitBreaker breaker, LatencyTracker latencies, Duration deadline, boolean hedging,
+                      int maxHedges) {
+        this.name = name;
+        this.breaker = breaker;
+        this.latencies = latencies;
+        this.deadline = deadline;
+        this.hedging = hedging;
+        this.hedges = new Semaphore(maxHedges);
+    }
+
+    /**
+     * Runs the blocking call on the executor. Cancelling the returned future
+     * interrupts the call, so the thread is given back as soon as the call
+     * reacts to the interrupt.
+     */
+    public static <T> CompletableFuture<T> supplyInterruptibly(Supplier<T> call, Executor executor) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final FutureTask<T> task = new FutureTask<>(call::get) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    result.complete(get());
+                } catch (ExecutionException exception) {
+                    result.completeExceptionally(exception.getCause());
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(exception);
+                }
+            }
+        };
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException exception) {
+            result.completeExceptionally(exception);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the call, failing with {@link CallNotPermittedException} right away
+     * while the breaker is open and with a {@link java.util.concurrent.TimeoutException}
+     * once the deadline has passed.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CallNotPermittedException(name));
+        }
+        final long start = System.nanoTime();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger();
+        final List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+
+        attempt(call, result, pending, attempts);
+        if (hedging && latencies.count() >= HEDGE_MINIMUM_SAMPLES) {
+            final long delay = latencies.percentile(0.95);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+                if (!result.isDone() && hedges.tryAcquire()) {
+                    attempt(call, result, pending, attempts).whenComplete((value, throwable) -> hedges.release());
+                }
+            });
+        }
+
+        return result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, throwable) -> {
+                    attempts.forEach(attempt -> attempt.cancel(true));
+                    if (throwable == null) {
+                        latencies.record(System.nanoTime() - start);
+                        breaker.onSuccess();
+                    } else {
+                        breaker.onFailure();
+                    }
+                });
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    public LatencyTracker latencies() {
+        return latencies;
+    }
+
+    /**
+     * Completes the result with the first successful attempt, or with the
+     * failure of the last attempt if none succeeded.
+     */
+    private <T> CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result,
+                                             AtomicInteger pending, List<CompletableFuture<T>> attempts) {
+        pending.incrementAndGet();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+        attempts.add(future);
+        if (result.isDone()) {
+            // settled while this attempt was starting, after the others were cancelled
+            future.cancel(true);
+        }
+        future.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                result.complete(value);
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+}
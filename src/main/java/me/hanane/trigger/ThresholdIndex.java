@@ -0,0 +1,105 @@
+package me.hanane.trigger;
+
+import java.util.Arrays;
+
+/**
+ * Threshold triggers of one location and field, sorted by threshold in
+ * parallel primitive arrays.
+ *
+ * A threshold condition can only change its outcome when the value crosses
+ * the threshold, so when a value moves from {@code a} to {@code b} only the
+ * entries with a threshold in {@code [min(a, b), max(a, b)]} need to be
+ * re-checked. Active triggers with a hysteresis band release further away, so
+ * the range is widened by the widest band in the index. Both ends are found by
+ * binary search, which makes the cost of an update proportional to the number
+ * of crossed thresholds.
+ */
+final class ThresholdIndex {
+
+    private double[] thresholds = new double[8];
+    private long[] ids = new long[8];
+    private double widestBand;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(long id, double threshold, double band) {
+        if (size == ids.length) {
+            thresholds = Arrays.copyOf(thresholds, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        final int index = upperBound(threshold);
+        System.arraycopy(thresholds, index, thresholds, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        thresholds[index] = threshold;
+        ids[index] = id;
+        widestBand = Math.max(widestBand, band);
+        size++;
+    }
+
+    boolean remove(long id) {
+        for (int index = 0; index < size; index++) {
+            if (ids[index] == id) {
+                System.arraycopy(thresholds, index + 1, thresholds, index, size - index - 1);
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits the id of every entry whose outcome may differ between the two
+     * values. When either value is NaN (unknown), every entry is visited.
+     */
+    void visitCrossed(double from, double to, Visitor visitor) {
+        int start = 0, end = size;
+        if (!Double.isNaN(from) && !Double.isNaN(to)) {
+            start = lowerBound(Math.min(from, to) - widestBand);
+            end = upperBound(Math.max(from, to) + widestBand);
+        }
+        for (int index = start; index < end; index++) {
+            visitor.visit(ids[index]);
+        }
+    }
+
+    /**
+     * First position whose threshold is not less than the value.
+     */
+    private int lowerBound(double value) {
+        int low = 0, high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (thresholds[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose threshold is greater than the value.
+     */
+    private int upperBound(double value) {
+        int low = 0, high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long id);
+    }
+}
@@ -0,0 +1,451 @@
+package me.hanane.trigger;
+
+import com.vaadin.flow.shared.Registration;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.service.TriggerRepository;
+import me.hanane.location.Geolocation;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.trigger.log.TriggerEventLog;
+import me.hanane.trigger.log.TriggerEventType;
+import me.hanane.trigger.log.TriggerState;
+import me.hanane.trigger.schedule.TriggerScheduler;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherLookupService;
+import me.hanane.weather.WeatherPoller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evaluates enabled triggers against every new weather snapshot of their
+ * location.
+ *
+ * Triggers are grouped by polling slot, and each slot remembers the last value
+ * of every {@link TriggerField}. A snapshot only re-checks the triggers whose
+ * field actually changed, and of those only the ones whose threshold the value
+ * crossed, found through a per-field {@link ThresholdIndex}. A trigger fires
+ * when its condition goes from false to true, and firings are handed to every
+ * {@link TriggerListener} bean. Expression triggers are compiled once by the
+ * {@link ExpressionCompiler} and re-checked whenever any field changed.
+ *
+ * Hysteresis bands, minimum dwell and cooldown keep triggers whose value
+ * hovers around the threshold from flapping; their state lives in
+ * {@link TriggerStates}. State changes are appended to the
+ * {@link TriggerEventLog}, which restores the state after a restart.
+ *
+ * Every location is a partition that owns its triggers and their state. The
+ * snapshots of a polling cycle are evaluated per partition in parallel on the
+ * trigger evaluation {@link ForkJoinPool}, and the firings are then published
+ * in a fixed location order.
+ *
+ * Scheduled triggers have no condition and live on the {@link TriggerScheduler}
+ * instead; the due ones are fired in batches with the current weather of their
+ * location.
+ */
+@Component
+public class TriggerEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TriggerEngine.class);
+    private static final Comparator<GridCell> CELL_ORDER = Comparator.comparingInt(GridCell::latitudeIndex)
+            .thenComparingInt(GridCell::longitudeIndex);
+
+    private final TriggerRepository repository;
+    private final WeatherPoller poller;
+    private final WeatherLookupService weatherLookupService;
+    private final ExpressionCompiler compiler;
+    private final TriggerEventLog eventLog;
+    private final ForkJoinPool pool;
+    private final TriggerScheduler scheduler;
+    private final ObjectProvider<TriggerListener> listeners;
+
+    private final Map<GridCell, LocationTriggers> locations = new ConcurrentHashMap<>();
+    private final Map<Long, GridCell> cells = new ConcurrentHashMap<>();
+
+    public TriggerEngine(TriggerRepository repository, WeatherPoller poller,
+                         WeatherLookupService weatherLookupService, ExpressionCompiler compiler,
+                         TriggerEventLog eventLog, @Qualifier("triggerEvaluationPool") ForkJoinPool pool,
+                         TriggerScheduler scheduler, ObjectProvider<TriggerListener> listeners) {
+        this.repository = repository;
+        this.poller = poller;
+        this.weatherLookupService = weatherLookupService;
+        this.compiler = compiler;
+        this.eventLog = eventLog;
+        this.pool = pool;
+        this.scheduler = scheduler;
+        this.listeners = listeners;
+    }
+
+    @PostConstruct
+    public void listen() {
+        poller.addCycleListener(this::evaluate);
+        scheduler.start(this::fireScheduled);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Long, TriggerState> recovered = Map.of();
+        try {
+            recovered = eventLog.recover();
+        } catch (IOException exception) {
+            LOGGER.error("Could not recover trigger states, starting fresh", exception);
+        }
+        final List<Trigger> triggers = repository.findByEnabledTrue();
+        for (Trigger trigger : triggers) {
+            try {
+                register(trigger, recovered.get(trigger.getId()));
+            } catch (IllegalArgumentException exception) {
+                LOGGER.warn("Skipping trigger {}: {}", trigger.getId(), exception.getMessage());
+            }
+        }
+        LOGGER.info("Loaded {} triggers over {} locations, {} scheduled", triggers.size(), locations.size(),
+                scheduler.size());
+        // records past a gap in the log were not replayed, start over from the recovered states
+        snapshot();
+    }
+
+    /**
+     * Checks that the trigger can be evaluated, compiling its expression.
+     *
+     * @throws IllegalArgumentException if it cannot
+     */
+    public void validate(Trigger trigger) {
+        TriggerRule.of(trigger, compiler);
+    }
+
+    /**
+     * Starts evaluating the trigger, replacing any earlier version of it. A
+     * disabled trigger is only removed.
+     */
+    public void register(Trigger trigger) {
+        register(trigger, null);
+    }
+
+    private synchronized void register(Trigger trigger, TriggerState restored) {
+        unregister(trigger.getId());
+        if (!trigger.isEnabled()) {
+            return;
+        }
+        final TriggerRule rule = TriggerRule.of(trigger, compiler);
+        if (rule.isScheduled()) {
+            scheduler.schedule(rule, restored == null ? 0 : restored.firedAt());
+            return;
+        }
+        final GridCell cell = poller.cellOf(rule.location());
+        final LocationTriggers location = locations.computeIfAbsent(cell, key -> new LocationTriggers(eventLog));
+        if (location.registration == null) {
+            location.registration = poller.watch(rule.location());
+            // seed the new slot instead of waiting for the next polling cycle
+            weatherLookupService.weatherAsync(rule.location())
+                    .thenAcceptAsync(weather -> weather.ifPresent(value -> evaluate(cell, value)), pool);
+        }
+        cells.put(rule.id(), cell);
+        publish(location.add(rule, restored, System.currentTimeMillis()));
+    }
+
+    public synchronized void unregister(Long triggerId) {
+        if (triggerId == null) {
+            return;
+        }
+        if (scheduler.cancel(triggerId)) {
+            eventLog.append(TriggerEventType.REMOVED, triggerId, System.currentTimeMillis(), Double.NaN);
+            return;
+        }
+        final GridCell cell = cells.remove(triggerId);
+        if (cell == null) {
+            return;
+        }
+        final LocationTriggers location = locations.get(cell);
+        eventLog.append(TriggerEventType.REMOVED, triggerId, System.currentTimeMillis(), Double.NaN);
+        if (location.remove(triggerId)) {
+            locations.remove(cell);
+            location.registration.remove();
+        }
+    }
+
+    public int size() {
+        return cells.size() + scheduler.size();
+    }
+
+    /**
+     * Writes the state of every trigger to the event log snapshot, so a
+     * restart only replays the events after it.
+     */
+    @Scheduled(fixedDelayString = "${htriggers.trigger.log.snapshot-interval:PT15M}",
+            initialDelayString = "${htriggers.trigger.log.snapshot-interval:PT15M}")
+    @PreDestroy
+    public void snapshot() {
+        try {
+            eventLog.snapshot(consumer -> {
+                locations.values().forEach(location -> location.forEachState(consumer));
+                scheduler.forEachState(consumer);
+            });
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Could not snapshot trigger states", exception);
+        }
+    }
+
+    /**
+     * Evaluates the triggers of the slot against a new snapshot.
+     */
+    public void evaluate(GridCell cell, WeatherInfo weather) {
+        final LocationTriggers location = locations.get(cell);
+        if (location != null) {
+            publish(location.evaluate(weather, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Evaluates a whole polling cycle, one task per location on the evaluation
+     * pool, and publishes the firings ordered by location.
+     */
+    public void evaluate(Map<GridCell, WeatherInfo> cycle) {
+        final List<Map.Entry<GridCell, LocationTriggers>> partitions = new ArrayList<>();
+        for (Map.Entry<GridCell, WeatherInfo> entry : cycle.entrySet()) {
+            final LocationTriggers location = locations.get(entry.getKey());
+            if (location != null) {
+                partitions.add(Map.entry(entry.getKey(), location));
+            }
+        }
+        partitions.sort(Map.Entry.comparingByKey(CELL_ORDER));
+        final List<List<TriggerFiring>> firings = new ArrayList<>(Collections.nCopies(partitions.size(), null));
+        final long now = System.currentTimeMillis();
+        pool.invoke(new EvaluationTask(partitions, cycle, firings, now, 0, partitions.size()));
+        firings.forEach(this::publish);
+    }
+
+    /**
+     * Fires a batch of due scheduled triggers with the weather of their
+     * locations, looked up together. The scheduler thread only starts the
+     * lookup; the firings are published from the evaluation pool once the
+     * weather is in.
+     */
+    private void fireScheduled(List<TriggerRule> due) {
+        final long now = System.currentTimeMillis();
+        final Set<Geolocation> wanted = new LinkedHashSet<>();
+        due.forEach(rule -> wanted.add(rule.location()));
+        weatherLookupService.weatherAsync(wanted)
+                .thenAcceptAsync(results -> {
+                    final Map<Geolocation, WeatherInfo> weather = new HashMap<>();
+                    results.forEach(result -> result.weather().ifPresent(value -> weather.put(result.location(), value)));
+                    final List<TriggerFiring> firings = new ArrayList<>(due.size());
+                    final TriggerEventLog.Batch events = eventLog.batch();
+                    for (TriggerRule rule : due) {
+                        events.add(TriggerEventType.FIRED, rule.id(), now, Double.NaN);
+                        firings.add(rule.firing(weather.get(rule.location()), now));
+                    }
+                    events.commit();
+                    publish(firings);
+                }, pool)
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Could not fire {} scheduled triggers", due.size(), throwable);
+                    return null;
+                });
+    }
+
+    private void publish(List<TriggerFiring> firings) {
+        for (TriggerFiring firing : firings) {
+            LOGGER.debug("Trigger {} fired: {} = {}", firing.triggerId(), firing.field(), firing.value());
+            listeners.orderedStream().forEach(listener -> {
+                try {
+                    listener.onFiring(firing);
+                } catch (RuntimeException exception) {
+                    LOGGER.warn("Trigger listener failed", exception);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evaluates a range of partitions, splitting it in halves so idle workers
+     * can steal the partitions of a busy one.
+     */
+    private static final class EvaluationTask extends RecursiveAction {
+
+        private final List<Map.Entry<GridCell, LocationTriggers>> partitions;
+        private final Map<GridCell, WeatherInfo> cycle;
+        private final List<List<TriggerFiring>> firings;
+        private final long now;
+        private final int from;
+        private final int to;
+
+        private EvaluationTask(List<Map.Entry<GridCell, LocationTriggers>> partitions, Map<GridCell, WeatherInfo> cycle,
+                               List<List<TriggerFiring>> firings, long now, int from, int to) {
+            this.partitions = partitions;
+            this.cycle = cycle;
+            this.firings = firings;
+            this.now = now;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                final Map.Entry<GridCell, LocationTriggers> partition = partitions.get(from);
+                firings.set(from, partition.getValue().evaluate(cycle.get(partition.getKey()), now));
+                return;
+            }
+            if (to > from) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new EvaluationTask(partitions, cycle, firings, now, from, middle),
+                        new EvaluationTask(partitions, cycle, firings, now, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Triggers of one polling slot with the last seen value of every field,
+     * indexed per field by threshold. Triggers whose condition changed but
+     * that are held in their state by the minimum dwell are re-checked on
+     * every snapshot until they transition. The monitor only guards against
+     * concurrent registration; within a cycle each location is evaluated by a
+     * single task. Events are collected in a batch of the location's own and
+     * appended to the log once per evaluation.
+     */
+    private static final class LocationTriggers {
+
+        private final TriggerStates states = new TriggerStates();
+        private final TriggerEventLog.Batch events;
+        private final double[] values = new double[TriggerField.values().length];
+        private final Map<TriggerField, ThresholdIndex> indexes = new EnumMap<>(TriggerField.class);
+        private final Map<Long, TriggerRule> rules = new HashMap<>();
+        private final Map<Long, TriggerRule> expressions = new LinkedHashMap<>();
+        private final Set<Long> held = new LinkedHashSet<>();
+        private WeatherInfo last;
+        private Registration registration;
+
+        private LocationTriggers(TriggerEventLog eventLog) {
+            this.events = eventLog.batch();
+            Arrays.fill(values, Double.NaN);
+        }
+
+        /**
+         * Adds the rule and checks it against the last snapshot right away, so
+         * a condition that already holds does not wait for the value to move.
+         */
+        private synchronized List<TriggerFiring> add(TriggerRule unplaced, TriggerState restored, long now) {
+            final TriggerRule rule = unplaced.withSlot(states.allocate());
+            if (restored != null) {
+                states.restore(rule.slot(), restored.active(), restored.transitionedAt(), restored.firedAt());
+            }
+            rules.put(rule.id(), rule);
+            final List<TriggerFiring> firings = new ArrayList<>();
+            if (rule.hasExpression()) {
+                expressions.put(rule.id(), rule);
+            } else {
+                indexes.computeIfAbsent(rule.field(), field -> new ThresholdIndex())
+                        .add(rule.id(), rule.threshold(), rule.hysteresis());
+            }
+            if (last != null) {
+                check(rule, last, now, firings);
+                events.commit();
+            }
+            return firings;
+        }
+
+        /**
+         * Removes the rule, releasing its state, and returns whether the slot
+         * is now empty.
+         */
+        private synchronized boolean remove(long triggerId) {
+            final TriggerRule rule = rules.remove(triggerId);
+            if (rule == null) {
+                return rules.isEmpty();
+            }
+            if (rule.hasExpression()) {
+                expressions.remove(triggerId);
+            } else {
+                indexes.get(rule.field()).remove(triggerId);
+            }
+            held.remove(triggerId);
+            states.release(rule.slot());
+            return rules.isEmpty();
+        }
+
+        private synchronized List<TriggerFiring> evaluate(WeatherInfo weather, long now) {
+            final List<TriggerFiring> firings = new ArrayList<>();
+            final Set<Long> checked = new HashSet<>();
+            boolean changed = last == null;
+            last = weather;
+            for (TriggerField field : TriggerField.values()) {
+                final double value = field.extract(weather);
+                final double previous = values[field.ordinal()];
+                if (Double.compare(value, previous) == 0) {
+                    continue;
+                }
+                changed = true;
+                values[field.ordinal()] = value;
+                final ThresholdIndex index = indexes.get(field);
+                if (index != null) {
+                    index.visitCrossed(previous, value, id -> {
+                        checked.add(id);
+                        check(rules.get(id), weather, now, firings);
+                    });
+                }
+            }
+            if (changed) {
+                for (TriggerRule rule : expressions.values()) {
+                    checked.add(rule.id());
+                    check(rule, weather, now, firings);
+                }
+            }
+            for (Long id : new ArrayList<>(held)) {
+                if (!checked.contains(id)) {
+                    check(rules.get(id), weather, now, firings);
+                }
+            }
+            events.commit();
+            return firings;
+        }
+
+        private synchronized void forEachState(TriggerEventLog.StateConsumer consumer) {
+            for (TriggerRule rule : rules.values()) {
+                consumer.accept(rule.id(), states.isActive(rule.slot()), states.transitionedAt(rule.slot()),
+                        states.firedAt(rule.slot()));
+            }
+        }
+
+        private void check(TriggerRule rule, WeatherInfo weather, long now, List<TriggerFiring> firings) {
+            final boolean active = states.isActive(rule.slot());
+            final double value = rule.hasExpression() ? Double.NaN : values[rule.field().ordinal()];
+            final boolean matches = rule.hasExpression() ? rule.test(weather) : rule.test(value, active);
+            final int outcome = states.update(rule.slot(), matches, now, rule.minimumDwell(), rule.cooldown());
+            if (outcome == TriggerTransition.FIRED) {
+                events.add(TriggerEventType.FIRED, rule.id(), now, value);
+                firings.add(rule.hasExpression() ? rule.firing(weather, now) : rule.firing(value, weather, now));
+            } else if (outcome == TriggerTransition.CHANGED) {
+                events.add(matches ? TriggerEventType.ACTIVATED : TriggerEventType.RELEASED, rule.id(), now, value);
+            }
+            if (matches != states.isActive(rule.slot())) {
+                held.add(rule.id());
+            } else {
+                held.remove(rule.id());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package me.hanane.trigger;
+
+import me.hanane.data.entity.TriggerField;
+import me.hanane.location.Geolocation;
+import me.hanane.weather.WeatherInfo;
+
+/**
+ * A trigger whose condition just became true for a weather snapshot, or a
+ * scheduled trigger that is due. Firings of expression triggers carry the
+ * expression instead of a field, value and threshold, and scheduled firings
+ * carry neither. The snapshot is missing if the weather was unavailable.
+ */
+public record TriggerFiring(long triggerId, String name, String owner, Geolocation location,
+                            TriggerField field, double value, double threshold, String expression,
+                            WeatherInfo weather, long timestamp) {
+}
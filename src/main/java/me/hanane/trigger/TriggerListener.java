@@ -0,0 +1,11 @@
+package me.hanane.trigger;
+
+/**
+ * Receives trigger firings from the {@link TriggerEngine}. Implementations are
+ * called on the polling thread and must not block.
+ */
+@FunctionalInterface
+public interface TriggerListener {
+
+    void onFiring(TriggerFiring firing);
+}
@@ -0,0 +1,96 @@
+package me.hanane.trigger;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.location.Geolocation;
+import me.hanane.trigger.expression.CompiledExpression;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.trigger.schedule.DailySchedule;
+import me.hanane.weather.WeatherInfo;
+
+/**
+ * Immutable copy of the parts of a {@link Trigger} the engine evaluates, so
+ * the engine never holds on to managed entities. A rule has a daily schedule,
+ * a compiled expression, or a field, operator and threshold. The slot locates
+ * its state in {@link TriggerStates}.
+ */
+public record TriggerRule(long id, String name, String owner, Geolocation location,
+                          TriggerField field, TriggerOperator operator, double threshold,
+                          CompiledExpression expression, double hysteresis, long minimumDwell, long cooldown,
+                          DailySchedule schedule, int slot) {
+
+    /**
+     * @throws IllegalArgumentException if the trigger has no schedule, valid
+     *         expression or complete threshold condition
+     */
+    public static TriggerRule of(Trigger trigger, ExpressionCompiler compiler) {
+        final CompiledExpression expression = trigger.hasExpression() ? compiler.compile(trigger.getExpression()) : null;
+        final DailySchedule schedule = trigger.isScheduled() ? schedule(trigger) : null;
+        if (schedule == null && expression == null && (trigger.getField() == null || trigger.getOperator() == null)) {
+            throw new IllegalArgumentException("A trigger needs a schedule, an expression or a field and an operator");
+        }
+        if (trigger.getHysteresis() < 0) {
+            throw new IllegalArgumentException("The hysteresis band cannot be negative");
+        }
+        final long id = trigger.getId() == null ? 0 : trigger.getId();
+        return new TriggerRule(id, trigger.getName(), trigger.getOwner(), trigger.toGeolocation(),
+                trigger.getField(), trigger.getOperator(), trigger.getThreshold(), expression,
+                trigger.getHysteresis(), millis(trigger.getMinimumDwell()), millis(trigger.getCooldown()), schedule, -1);
+    }
+
+    private static DailySchedule schedule(Trigger trigger) {
+        try {
+            final String zone = trigger.getScheduleZone();
+            return new DailySchedule(trigger.getScheduleTime(),
+                    zone == null || zone.isBlank() ? ZoneOffset.UTC : ZoneId.of(zone));
+        } catch (DateTimeException exception) {
+            throw new IllegalArgumentException("Unknown time zone " + trigger.getScheduleZone(), exception);
+        }
+    }
+
+    private static long millis(Duration duration) {
+        return duration == null ? 0 : duration.toMillis();
+    }
+
+    public TriggerRule withSlot(int slot) {
+        return new TriggerRule(id, name, owner, location, field, operator, threshold, expression,
+                hysteresis, minimumDwell, cooldown, schedule, slot);
+    }
+
+    public boolean isScheduled() {
+        return schedule != null;
+    }
+
+    public boolean hasExpression() {
+        return expression != null;
+    }
+
+    /**
+     * Tests a threshold rule, releasing an active one only past the
+     * hysteresis band.
+     */
+    public boolean test(double value, boolean active) {
+        return operator.test(value, threshold, hysteresis, active);
+    }
+
+    public boolean test(WeatherInfo weather) {
+        return expression.test(weather);
+    }
+
+    public TriggerFiring firing(double value, WeatherInfo weather, long timestamp) {
+        return new TriggerFiring(id, name, owner, location, field, value, threshold, null, weather, timestamp);
+    }
+
+    /**
+     * Firing of an expression or scheduled rule.
+     */
+    public TriggerFiring firing(WeatherInfo weather, long timestamp) {
+        return new TriggerFiring(id, name, owner, location, null, Double.NaN, Double.NaN,
+                expression == null ? null : expression.getText(), weather, timestamp);
+    }
+}
@@ -0,0 +1,93 @@
+package me.hanane.trigger;
+
+import java.util.Arrays;
+
+/**
+ * Evaluation state of the triggers of one location, kept as parallel
+ * primitive arrays indexed by a dense slot instead of one object per trigger.
+ * A trigger costs 17 bytes here: its state, when it last changed state and
+ * when it last fired. Released slots are reused.
+ *
+ * Every location owns its states, so they are only accessed under that
+ * location's monitor and need no locking of their own.
+ */
+final class TriggerStates {
+
+    private static final byte ACTIVE = 1;
+
+    private byte[] states = new byte[8];
+    private long[] transitionedAt = new long[8];
+    private long[] firedAt = new long[8];
+    private int[] free = new int[8];
+    private int freeCount;
+    private int used;
+
+    int allocate() {
+        final int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (used == states.length) {
+                final int capacity = used * 2;
+                states = Arrays.copyOf(states, capacity);
+                transitionedAt = Arrays.copyOf(transitionedAt, capacity);
+                firedAt = Arrays.copyOf(firedAt, capacity);
+            }
+            slot = used++;
+        }
+        states[slot] = 0;
+        transitionedAt[slot] = 0;
+        firedAt[slot] = 0;
+        return slot;
+    }
+
+    void release(int slot) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+    }
+
+    int size() {
+        return used - freeCount;
+    }
+
+    boolean isActive(int slot) {
+        return states[slot] == ACTIVE;
+    }
+
+    long transitionedAt(int slot) {
+        return transitionedAt[slot];
+    }
+
+    long firedAt(int slot) {
+        return firedAt[slot];
+    }
+
+    /**
+     * Sets the state of a freshly allocated slot, for example from the event
+     * log after a restart.
+     */
+    void restore(int slot, boolean active, long transitioned, long fired) {
+        states[slot] = active ? ACTIVE : 0;
+        transitionedAt[slot] = transitioned;
+        firedAt[slot] = fired;
+    }
+
+    /**
+     * Applies a new outcome of the trigger's condition by the
+     * {@link TriggerTransition} rules and returns the transition.
+     */
+    int update(int slot, boolean matches, long now, long minimumDwell, long cooldown) {
+        final int transition = TriggerTransition.of(states[slot] == ACTIVE, transitionedAt[slot], firedAt[slot],
+                matches, now, minimumDwell, cooldown);
+        if (transition != TriggerTransition.UNCHANGED) {
+            states[slot] = matches ? ACTIVE : 0;
+            transitionedAt[slot] = now;
+        }
+        if (transition == TriggerTransition.FIRED) {
+            firedAt[slot] = now;
+        }
+        return transition;
+    }
+}
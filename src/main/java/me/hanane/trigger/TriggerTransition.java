@@ -0,0 +1,37 @@
+package me.hanane.trigger;
+
+/**
+ * The state transition of a trigger on a new outcome of its condition, shared
+ * by the engine through {@link TriggerStates} and by the
+ * {@link me.hanane.trigger.backtest.Backtester}, so a backtest replays the
+ * minimum dwell and cooldown exactly as they apply live. The outcome already
+ * accounts for the hysteresis band, tested against the release threshold
+ * while the trigger is active.
+ */
+public final class TriggerTransition {
+
+    public static final int UNCHANGED = 0;
+    public static final int CHANGED = 1;
+    public static final int FIRED = 2;
+
+    private TriggerTransition() {
+    }
+
+    /**
+     * Returns whether the state is {@link #UNCHANGED}, {@link #CHANGED} to
+     * {@code matches} as of {@code now}, or changed and the trigger
+     * {@link #FIRED} as of {@code now}. The state only changes once it has
+     * been held for the minimum dwell, and a trigger that becomes active again
+     * within the cooldown does so silently.
+     */
+    public static int of(boolean active, long transitionedAt, long firedAt, boolean matches, long now,
+                         long minimumDwell, long cooldown) {
+        if (matches == active || now - transitionedAt < minimumDwell) {
+            return UNCHANGED;
+        }
+        if (!matches || now - firedAt < cooldown) {
+            return CHANGED;
+        }
+        return FIRED;
+    }
+}
@@ -0,0 +1,9 @@
+package me.hanane.trigger.backtest;
+
+/**
+ * How often a trigger would have fired over the replayed observations. The
+ * timestamps are those of the first firings, up to the configured limit,
+ * while the count covers all of them.
+ */
+public record BacktestResult(long triggerId, String name, int firings, long[] timestamps) {
+}
@@ -0,0 +1,77 @@
+package me.hanane.trigger.backtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.service.TriggerRepository;
+import me.hanane.location.Geolocation;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.WeatherPoller;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Backtests triggers against the archived observations of their location.
+ */
+@Service
+public class BacktestService {
+
+    private final Backtester backtester;
+    private final ObservationArchive archive;
+    private final WeatherPoller poller;
+    private final TriggerRepository repository;
+    private final ForkJoinPool pool;
+
+    public BacktestService(Backtester backtester, ObservationArchive archive, WeatherPoller poller,
+                           TriggerRepository repository, @Qualifier("triggerBacktestPool") ForkJoinPool pool) {
+        this.backtester = backtester;
+        this.archive = archive;
+        this.poller = poller;
+        this.repository = repository;
+        this.pool = pool;
+    }
+
+    /**
+     * Backtests every enabled trigger polled together with the location.
+     *
+     * @throws IOException if the archived observations cannot be read
+     */
+    public List<BacktestResult> backtest(Geolocation location, Instant from, Instant to) throws IOException {
+        final GridCell cell = poller.cellOf(location);
+        return backtester.run(cell, repository.findByEnabledTrue(), archive.load(cell),
+                from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    /**
+     * Backtests one trigger, which need not be saved yet, for example while
+     * it is being edited.
+     *
+     * @throws IllegalArgumentException if the trigger's condition is invalid
+     * @throws IOException if the archived observations cannot be read
+     */
+    public BacktestResult backtest(Trigger trigger, Instant from, Instant to) throws IOException {
+        final GridCell cell = poller.cellOf(trigger.toGeolocation());
+        return backtester.run(cell, List.of(trigger), archive.load(cell), from.toEpochMilli(), to.toEpochMilli())
+                .get(0);
+    }
+
+    /**
+     * Backtests one trigger on the backtest pool, so a view can wait for the
+     * result without holding its session. The future fails with an
+     * {@link IllegalArgumentException} if the trigger's condition is invalid,
+     * or an {@link UncheckedIOException} if the archive cannot be read.
+     */
+    public CompletableFuture<BacktestResult> backtestAsync(Trigger trigger, Instant from, Instant to) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return backtest(trigger, from, to);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, pool);
+    }
+}
@@ -0,0 +1,188 @@
+package me.hanane.trigger.backtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.trigger.TriggerRule;
+import me.hanane.trigger.TriggerTransition;
+import me.hanane.trigger.expression.ColumnExpression;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.WeatherPoller;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays the recorded observations of one polling slot against the triggers
+ * located in it to show how often they would have fired, without touching
+ * the live engine state.
+ *
+ * Triggers run in parallel on the backtest pool, each over the whole history
+ * a block of rows at a time. For a block, the condition is first evaluated
+ * into a boolean array by a tight loop over the field column, or by a
+ * {@link ColumnExpression}; a second pass then walks the outcomes through the
+ * engine's {@link TriggerTransition}, with the hysteresis band applied the same
+ * way. Scheduled triggers fire at every occurrence within the replayed period.
+ */
+@Component
+public class Backtester {
+
+    private static final int BLOCK = 4096;
+
+    private final ExpressionCompiler compiler;
+    private final WeatherPoller poller;
+    private final ForkJoinPool pool;
+    private final int maxTimestamps;
+
+    public Backtester(ExpressionCompiler compiler, WeatherPoller poller,
+                      @Qualifier("triggerBacktestPool") ForkJoinPool pool,
+                      @Value("${htriggers.backtest.max-timestamps:1000}") int maxTimestamps) {
+        this.compiler = compiler;
+        this.poller = poller;
+        this.pool = pool;
+        this.maxTimestamps = maxTimestamps;
+    }
+
+    /**
+     * Replays the observations of the cell made between {@code from}
+     * (inclusive) and {@code to} (exclusive) and returns one result per
+     * trigger polled in that cell, in order. Triggers elsewhere are skipped.
+     *
+     * @throws IllegalArgumentException if a trigger cannot be evaluated, or
+     *         its expression uses a value that is not recorded
+     */
+    public List<BacktestResult> run(GridCell cell, List<Trigger> triggers, ObservationColumns history,
+                                    long from, long to) {
+        final List<Backtest> backtests = triggers.stream()
+                .map(trigger -> TriggerRule.of(trigger, compiler))
+                .filter(rule -> cell.equals(poller.cellOf(rule.location())))
+                .map(this::backtest)
+                .collect(Collectors.toList());
+        final int first = history.rowAt(from);
+        final int last = history.rowAt(to);
+        return pool.submit(() -> backtests.parallelStream()
+                        .map(backtest -> backtest.run(history, first, last, from, to))
+                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    private Backtest backtest(TriggerRule rule) {
+        final ColumnExpression expression = rule.hasExpression()
+                ? compiler.compileColumns(rule.expression().getText()) : null;
+        return new Backtest(rule, expression, maxTimestamps);
+    }
+
+    /**
+     * Writes whether each value of the block satisfies the operator.
+     */
+    private static void compare(double[] values, int from, int length, TriggerOperator operator, double threshold,
+                                boolean[] out) {
+        switch (operator) {
+            case GREATER_THAN -> {
+                for (int i = 0; i < length; i++) {
+                    out[i] = values[from + i] > threshold;
+                }
+            }
+            case GREATER_OR_EQUAL -> {
+                for (int i = 0; i < length; i++) {
+                    out[i] = values[from + i] >= threshold;
+                }
+            }
+            case LESS_THAN -> {
+                for (int i = 0; i < length; i++) {
+                    out[i] = values[from + i] < threshold;
+                }
+            }
+            case LESS_OR_EQUAL -> {
+                for (int i = 0; i < length; i++) {
+                    out[i] = values[from + i] <= threshold;
+                }
+            }
+        }
+    }
+
+    private record Backtest(TriggerRule rule, ColumnExpression expression, int maxTimestamps) {
+
+        private BacktestResult run(ObservationColumns history, int first, int last, long from, long to) {
+            final Firings firings = new Firings(maxTimestamps);
+            if (rule.isScheduled()) {
+                for (long occurrence = rule.schedule().next(from - 1); occurrence < to;
+                     occurrence = rule.schedule().next(occurrence)) {
+                    firings.add(occurrence);
+                }
+            } else {
+                replay(history, first, last, firings);
+            }
+            return new BacktestResult(rule.id(), rule.name(), firings.count, firings.timestamps());
+        }
+
+        private void replay(ObservationColumns history, int first, int last, Firings firings) {
+            final long[] timestamps = history.timestamps();
+            final double[][] columns = history.columns();
+            final boolean[] enter = new boolean[BLOCK];
+            final boolean banded = expression == null && rule.hysteresis() > 0;
+            final boolean[] hold = banded ? new boolean[BLOCK] : enter;
+            final boolean[][] scratch = expression == null ? null : expression.scratch(BLOCK);
+            final double release = expression == null
+                    ? rule.operator().releaseThreshold(rule.threshold(), rule.hysteresis()) : Double.NaN;
+            boolean active = false;
+            long transitionedAt = 0;
+            long firedAt = 0;
+            for (int start = first; start < last; start += BLOCK) {
+                final int length = Math.min(BLOCK, last - start);
+                if (expression != null) {
+                    expression.evaluate(columns, start, length, enter, scratch);
+                } else {
+                    final double[] values = columns[rule.field().ordinal()];
+                    compare(values, start, length, rule.operator(), rule.threshold(), enter);
+                    if (banded) {
+                        compare(values, start, length, rule.operator(), release, hold);
+                    }
+                }
+                for (int i = 0; i < length; i++) {
+                    final boolean matches = active ? hold[i] : enter[i];
+                    final long now = timestamps[start + i];
+                    final int transition = TriggerTransition.of(active, transitionedAt, firedAt, matches, now,
+                            rule.minimumDwell(), rule.cooldown());
+                    if (transition != TriggerTransition.UNCHANGED) {
+                        active = matches;
+                        transitionedAt = now;
+                    }
+                    if (transition == TriggerTransition.FIRED) {
+                        firedAt = now;
+                        firings.add(now);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Firings {
+
+        private final int limit;
+        private long[] timestamps = new long[16];
+        private int count;
+
+        private Firings(int limit) {
+            this.limit = limit;
+        }
+
+        private void add(long timestamp) {
+            if (count < limit) {
+                if (count == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, Math.min(limit, count * 2));
+                }
+                timestamps[count] = timestamp;
+            }
+            count++;
+        }
+
+        private long[] timestamps() {
+            return Arrays.copyOf(timestamps, Math.min(count, limit));
+        }
+    }
+}
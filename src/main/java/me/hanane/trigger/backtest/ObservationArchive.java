@@ -0,0 +1,93 @@
+package me.hanane.trigger.backtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.ObservationHistory;
+import me.hanane.weather.ObservationSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the observations of the {@link ObservationHistory} beyond its ring
+ * buffers, as one {@link ObservationColumns} file per {@link GridCell}, for
+ * backtests.
+ *
+ * Every archive run appends the rows recorded since the last archived one and
+ * drops the rows older than the retention period. Loading a cell returns the
+ * archived rows followed by the ones recorded since.
+ */
+@Component
+public class ObservationArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObservationArchive.class);
+
+    private final ObservationHistory history;
+    private final Path directory;
+    private final long retention;
+
+    public ObservationArchive(ObservationHistory history,
+                              @Value("${htriggers.backtest.archive.directory:data/observations}") String directory,
+                              @Value("${htriggers.backtest.archive.retention:P365D}") Duration retention) {
+        this.history = history;
+        this.directory = Path.of(directory);
+        this.retention = retention.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${htriggers.backtest.archive.interval:PT1H}",
+            initialDelayString = "${htriggers.backtest.archive.interval:PT1H}")
+    public void archive() {
+        for (GridCell cell : history.cells()) {
+            try {
+                archive(cell);
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.warn("Could not archive the observations of {}", cell, exception);
+            }
+        }
+    }
+
+    /**
+     * Appends the rows of the cell recorded since the last archive run.
+     */
+    public synchronized void archive(GridCell cell) throws IOException {
+        final ObservationSeries series = history.series(cell).orElse(null);
+        if (series == null) {
+            return;
+        }
+        final ObservationColumns archived = read(cell);
+        final ObservationSeries.Rows rows = series.rowsAfter(archived.lastTimestamp());
+        if (rows.size() == 0) {
+            return;
+        }
+        Files.createDirectories(directory);
+        archived.append(rows).since(rows.timestamps()[rows.size() - 1] - retention).write(file(cell));
+    }
+
+    /**
+     * The archived observations of the cell followed by the ones recorded
+     * since, empty if there are none.
+     */
+    public ObservationColumns load(GridCell cell) throws IOException {
+        final ObservationColumns archived;
+        synchronized (this) {
+            archived = read(cell);
+        }
+        return history.series(cell)
+                .map(series -> archived.append(series.rowsAfter(archived.lastTimestamp())))
+                .orElse(archived);
+    }
+
+    private ObservationColumns read(GridCell cell) throws IOException {
+        final Path file = file(cell);
+        return Files.isRegularFile(file) ? ObservationColumns.read(file) : ObservationColumns.empty();
+    }
+
+    private Path file(GridCell cell) {
+        return directory.resolve(GridCell.format(cell.latitude()) + "_" + GridCell.format(cell.longitude()) + ".obs");
+    }
+}
@@ -0,0 +1,232 @@
+package me.hanane.trigger.backtest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.weather.ObservationSeries;
+
+/**
+ * Recorded observations of one location in columnar form: the observation
+ * times and one column per {@link TriggerField}, indexed by ordinal, with
+ * missing values as NaN. Rows are ordered by time.
+ *
+ * The file format is a header (magic, row count, column count and the field
+ * name of every column) followed by the time column and the value columns,
+ * each stored contiguously in little-endian order. Columns of fields that are
+ * not in the file read as NaN, and unknown columns are skipped.
+ */
+public final class ObservationColumns {
+
+    private static final int MAGIC = 0x48544F43;
+    private static final TriggerField[] FIELDS = TriggerField.values();
+
+    private final long[] timestamps;
+    private final double[][] columns;
+
+    /**
+     * @param columns one column per field, indexed by ordinal, each as long as
+     *                the timestamps
+     */
+    public ObservationColumns(long[] timestamps, double[][] columns) {
+        if (columns.length != FIELDS.length) {
+            throw new IllegalArgumentException("Expected " + FIELDS.length + " columns, got " + columns.length);
+        }
+        for (double[] column : columns) {
+            if (column.length != timestamps.length) {
+                throw new IllegalArgumentException("All columns need " + timestamps.length + " rows");
+            }
+        }
+        for (int row = 1; row < timestamps.length; row++) {
+            if (timestamps[row] < timestamps[row - 1]) {
+                throw new IllegalArgumentException("Observations are not ordered by time at row " + row);
+            }
+        }
+        this.timestamps = timestamps;
+        this.columns = columns;
+    }
+
+    public static ObservationColumns empty() {
+        return new ObservationColumns(new long[0], new double[FIELDS.length][0]);
+    }
+
+    /**
+     * The rows of this followed by the rows copied out of a series, which
+     * must not be older than the last row of this.
+     */
+    public ObservationColumns append(ObservationSeries.Rows rows) {
+        if (rows.size() == 0) {
+            return this;
+        }
+        final int size = size();
+        final long[] appendedTimestamps = Arrays.copyOf(timestamps, size + rows.size());
+        System.arraycopy(rows.timestamps(), 0, appendedTimestamps, size, rows.size());
+        final double[][] appendedColumns = new double[FIELDS.length][];
+        for (int column = 0; column < FIELDS.length; column++) {
+            appendedColumns[column] = Arrays.copyOf(columns[column], size + rows.size());
+            System.arraycopy(rows.columns()[column], 0, appendedColumns[column], size, rows.size());
+        }
+        return new ObservationColumns(appendedTimestamps, appendedColumns);
+    }
+
+    /**
+     * The rows observed at or after the time.
+     */
+    public ObservationColumns since(long timestamp) {
+        final int first = rowAt(timestamp);
+        if (first == 0) {
+            return this;
+        }
+        final double[][] kept = new double[FIELDS.length][];
+        for (int column = 0; column < FIELDS.length; column++) {
+            kept[column] = Arrays.copyOfRange(columns[column], first, size());
+        }
+        return new ObservationColumns(Arrays.copyOfRange(timestamps, first, size()), kept);
+    }
+
+    public static ObservationColumns read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = read(channel, 0, Integer.BYTES * 3);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not an observation history");
+            }
+            final int rows = header.getInt();
+            final int columnCount = header.getInt();
+            long position = Integer.BYTES * 3;
+            final TriggerField[] order = new TriggerField[columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                final int length = read(channel, position, Short.BYTES).getShort() & 0xFFFF;
+                final byte[] name = new byte[length];
+                read(channel, position + Short.BYTES, length).get(name);
+                position += Short.BYTES + length;
+                order[column] = field(new String(name, StandardCharsets.UTF_8));
+            }
+            final long[] timestamps = new long[rows];
+            read(channel, position, (long) rows * Long.BYTES).asLongBuffer().get(timestamps);
+            position += (long) rows * Long.BYTES;
+            final double[][] columns = new double[FIELDS.length][];
+            for (TriggerField field : order) {
+                if (field != null) {
+                    columns[field.ordinal()] = new double[rows];
+                    read(channel, position, (long) rows * Double.BYTES).asDoubleBuffer().get(columns[field.ordinal()]);
+                }
+                position += (long) rows * Double.BYTES;
+            }
+            for (int column = 0; column < columns.length; column++) {
+                if (columns[column] == null) {
+                    columns[column] = new double[rows];
+                    Arrays.fill(columns[column], Double.NaN);
+                }
+            }
+            return new ObservationColumns(timestamps, columns);
+        }
+    }
+
+    /**
+     * Writes the observations to a temporary file and moves it into place.
+     */
+    public void write(Path file) throws IOException {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int headerBytes = Integer.BYTES * 3;
+            for (TriggerField field : FIELDS) {
+                headerBytes += Short.BYTES + field.name().length();
+            }
+            final ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(size()).putInt(FIELDS.length);
+            for (TriggerField field : FIELDS) {
+                final byte[] name = field.name().getBytes(StandardCharsets.UTF_8);
+                header.putShort((short) name.length).put(name);
+            }
+            write(channel, header.flip());
+            final ByteBuffer times = ByteBuffer.allocate(size() * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            times.asLongBuffer().put(timestamps);
+            write(channel, times);
+            for (double[] column : columns) {
+                final ByteBuffer values = ByteBuffer.allocate(size() * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                values.asDoubleBuffer().put(column);
+                write(channel, values);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Time of the last row, or {@link Long#MIN_VALUE} when empty.
+     */
+    public long lastTimestamp() {
+        return timestamps.length == 0 ? Long.MIN_VALUE : timestamps[timestamps.length - 1];
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    long[] timestamps() {
+        return timestamps;
+    }
+
+    /**
+     * The columns, indexed by field ordinal. Callers must not modify them.
+     */
+    double[][] columns() {
+        return columns;
+    }
+
+    double[] column(TriggerField field) {
+        return columns[field.ordinal()];
+    }
+
+    /**
+     * Index of the first row observed at or after the time, {@link #size()}
+     * if there is none.
+     */
+    public int rowAt(long timestamp) {
+        int low = 0;
+        int high = timestamps.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static TriggerField field(String name) {
+        for (TriggerField field : FIELDS) {
+            if (field.name().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, long length) throws IOException {
+        if (position + length > channel.size()) {
+            throw new IOException("Observation history is truncated");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package me.hanane.trigger.dispatch;
+
+/**
+ * What the {@link TriggerDispatcher} does with a firing when its queue is full.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Wait for room, which slows down trigger evaluation.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest queued firing.
+     */
+    DROP_OLDEST,
+    /**
+     * Append firings to a file on disk until the queue has drained.
+     */
+    SPILL
+}
@@ -0,0 +1,15 @@
+package me.hanane.trigger.dispatch;
+
+import java.util.List;
+import me.hanane.trigger.TriggerFiring;
+
+/**
+ * Delivers batches of firings to their recipient. Implementations are called
+ * on the dispatch thread, one batch at a time and in firing order, and may
+ * block.
+ */
+@FunctionalInterface
+public interface TriggerDelivery {
+
+    void deliver(String recipient, List<TriggerFiring> firings);
+}
@@ -0,0 +1,398 @@
+package me.hanane.trigger.dispatch;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import me.hanane.trigger.TriggerFiring;
+import me.hanane.trigger.TriggerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decouples trigger evaluation from delivery.
+ *
+ * Firings go through a bounded queue drained by a single dispatch thread, so
+ * each recipient gets them once and in firing order. A trigger that fires again within the
+ * deduplication window is dropped. The dispatch thread waits briefly for more
+ * firings and hands them to every {@link TriggerDelivery} bean in one batch per
+ * recipient. When the queue is full the {@link BackpressurePolicy} decides
+ * whether evaluation waits, the oldest firing is dropped, or firings are
+ * spilled to disk and replayed once the queue has drained. A firing that is
+ * dropped does not count for deduplication.
+ *
+ * The spill file stays open while spilling and is flushed once a batch of
+ * firings has been written, and by the dispatch thread whenever it comes
+ * around, so a burst costs one write per batch rather than one open per firing.
+ *
+ * The queue and spill depths, the firings delivered, deduplicated, dropped and
+ * spilled, and the time from firing to delivery are published as meters.
+ */
+@Component
+public class TriggerDispatcher implements TriggerListener, MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TriggerDispatcher.class);
+
+    private final BlockingQueue<TriggerFiring> queue;
+    private final BackpressurePolicy policy;
+    private final long dedupWindow;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Path spillFile;
+    private final ObjectProvider<TriggerDelivery> deliveries;
+    // expression firings carry NaN as value and threshold
+    private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+    private final Map<Long, Long> lastAccepted = new HashMap<>();
+    private int pruneAt = 1024;
+    private final Object spillLock = new Object();
+    private BufferedWriter spillWriter;
+    private int unflushed;
+    private long spillDepth;
+    private volatile boolean saturated;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private volatile Timer latency;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TriggerDispatcher(@Value("${htriggers.dispatch.queue-capacity:1000}") int queueCapacity,
+                             @Value("${htriggers.dispatch.backpressure:SPILL}") BackpressurePolicy policy,
+                             @Value("${htriggers.dispatch.dedup-window:5m}") Duration dedupWindow,
+                             @Value("${htriggers.dispatch.batch-size:100}") int batchSize,
+                             @Value("${htriggers.dispatch.linger:200ms}") Duration linger,
+                             @Value("${htriggers.dispatch.spill-file:data/dispatch-spill.jsonl}") String spillFile,
+                             ObjectProvider<TriggerDelivery> deliveries) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.policy = policy;
+        this.dedupWindow = dedupWindow.toMillis();
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.spillFile = Path.of(spillFile);
+        this.deliveries = deliveries;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (spillFile.getParent() != null) {
+            Files.createDirectories(spillFile.getParent());
+        }
+        if (Files.isRegularFile(spillFile)) {
+            // firings spilled before the last shutdown are delivered first
+            try (Stream<String> lines = Files.lines(spillFile, StandardCharsets.UTF_8)) {
+                spillDepth = lines.count();
+            }
+            LOGGER.info("Replaying {} spilled trigger firings", spillDepth);
+        }
+        running = true;
+        worker = new Thread(this::run, "trigger-dispatch");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        if (worker.isAlive()) {
+            worker.interrupt();
+        }
+        synchronized (spillLock) {
+            closeSpill();
+        }
+    }
+
+    @Override
+    public void onFiring(TriggerFiring firing) {
+        if (isDuplicate(firing)) {
+            deduplicated.incrementAndGet();
+            return;
+        }
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(firing)) {
+                        return;
+                    }
+                    warnSaturated();
+                    queue.put(firing);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    drop(firing);
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(firing)) {
+                    final TriggerFiring oldest = queue.poll();
+                    if (oldest != null) {
+                        drop(oldest);
+                        warnSaturated();
+                    }
+                }
+            }
+            case SPILL -> {
+                synchronized (spillLock) {
+                    // once spilling, newer firings go to disk too so order is kept
+                    if (spillDepth == 0 && queue.offer(firing)) {
+                        return;
+                    }
+                    warnSaturated();
+                    spill(firing);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("trigger.dispatch.queue.depth", queue, BlockingQueue::size)
+                .description("Firings waiting in the dispatch queue")
+                .register(registry);
+        Gauge.builder("trigger.dispatch.spill.depth", this, TriggerDispatcher::spillDepth)
+                .description("Firings spilled to disk and waiting to be replayed")
+                .register(registry);
+        FunctionCounter.builder("trigger.dispatch.delivered", delivered, AtomicLong::get)
+                .description("Firings handed to the deliveries")
+                .register(registry);
+        FunctionCounter.builder("trigger.dispatch.deduplicated", deduplicated, AtomicLong::get)
+                .description("Firings ignored within the deduplication window")
+                .register(registry);
+        FunctionCounter.builder("trigger.dispatch.dropped", dropped, AtomicLong::get)
+                .description("Firings dropped by backpressure or a failed spill")
+                .register(registry);
+        FunctionCounter.builder("trigger.dispatch.spilled", spilled, AtomicLong::get)
+                .description("Firings spilled to disk while the queue was full")
+                .register(registry);
+        latency = Timer.builder("trigger.dispatch.latency")
+                .description("Time from firing to delivery")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private long spillDepth() {
+        synchronized (spillLock) {
+            return spillDepth;
+        }
+    }
+
+    private synchronized boolean isDuplicate(TriggerFiring firing) {
+        final long now = firing.timestamp();
+        final Long previous = lastAccepted.get(firing.triggerId());
+        if (previous != null && now - previous < dedupWindow) {
+            return true;
+        }
+        lastAccepted.put(firing.triggerId(), now);
+        if (lastAccepted.size() > pruneAt) {
+            lastAccepted.values().removeIf(accepted -> now - accepted >= dedupWindow);
+            pruneAt = Math.max(1024, lastAccepted.size() * 2);
+        }
+        return false;
+    }
+
+    /**
+     * Counts a firing as dropped and lets the next firing of its trigger
+     * through, since this one never reaches its recipient.
+     */
+    private void drop(TriggerFiring firing) {
+        dropped.incrementAndGet();
+        synchronized (this) {
+            lastAccepted.remove(firing.triggerId(), firing.timestamp());
+        }
+    }
+
+    private void warnSaturated() {
+        if (!saturated) {
+            saturated = true;
+            LOGGER.warn("Trigger dispatch queue is full, applying {}", policy);
+        }
+    }
+
+    /**
+     * Appends the firing to the spill file; called holding the spill lock.
+     */
+    private void spill(TriggerFiring firing) {
+        try {
+            if (spillWriter == null) {
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spillWriter.write(gson.toJson(firing));
+            spillWriter.newLine();
+            spillDepth++;
+            spilled.incrementAndGet();
+            if (++unflushed >= batchSize) {
+                spillWriter.flush();
+                unflushed = 0;
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Could not spill trigger firing {}", firing.triggerId(), exception);
+            drop(firing);
+            closeSpill();
+        }
+    }
+
+    private void flushSpill() {
+        synchronized (spillLock) {
+            if (spillWriter == null || unflushed == 0) {
+                return;
+            }
+            try {
+                spillWriter.flush();
+                unflushed = 0;
+            } catch (IOException exception) {
+                LOGGER.warn("Could not flush spilled trigger firings", exception);
+                closeSpill();
+            }
+        }
+    }
+
+    /**
+     * Flushes and closes the spill file; called holding the spill lock.
+     */
+    private void closeSpill() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException exception) {
+            LOGGER.warn("Could not close the trigger firing spill file", exception);
+        }
+        spillWriter = null;
+        unflushed = 0;
+    }
+
+    private void run() {
+        final List<TriggerFiring> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                flushSpill();
+                replaySpilled(batch);
+                final TriggerFiring first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    saturated = false;
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    final TriggerFiring next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Trigger dispatch failed", exception);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Delivers the spilled firings once the queue, which only holds older
+     * ones, is empty. Firings spilled meanwhile go to a new file.
+     */
+    private void replaySpilled(List<TriggerFiring> batch) {
+        final Path replay = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        synchronized (spillLock) {
+            if (spillDepth == 0 || !queue.isEmpty()) {
+                return;
+            }
+            closeSpill();
+            try {
+                Files.move(spillFile, replay, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException exception) {
+                LOGGER.warn("Could not replay spilled trigger firings", exception);
+                return;
+            }
+            spillDepth = 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(replay, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    batch.add(gson.fromJson(line, TriggerFiring.class));
+                } catch (JsonParseException exception) {
+                    LOGGER.warn("Skipping corrupt spilled trigger firing");
+                }
+                if (batch.size() == batchSize) {
+                    deliver(batch);
+                }
+            }
+            deliver(batch);
+            Files.delete(replay);
+        } catch (IOException exception) {
+            LOGGER.warn("Could not replay spilled trigger firings", exception);
+        }
+    }
+
+    private void deliver(List<TriggerFiring> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final Map<String, List<TriggerFiring>> recipients = new LinkedHashMap<>();
+        for (TriggerFiring firing : batch) {
+            recipients.computeIfAbsent(Objects.toString(firing.owner(), ""), owner -> new ArrayList<>()).add(firing);
+        }
+        final List<TriggerDelivery> targets = deliveries.orderedStream().toList();
+        recipients.forEach((recipient, firings) -> {
+            if (targets.isEmpty()) {
+                LOGGER.info("{} trigger firings for '{}'", firings.size(), recipient);
+            }
+            for (TriggerDelivery delivery : targets) {
+                try {
+                    delivery.deliver(recipient, firings);
+                } catch (RuntimeException exception) {
+                    LOGGER.warn("Trigger delivery to '{}' failed", recipient, exception);
+                }
+            }
+        });
+        final Timer timer = latency;
+        if (timer != null) {
+            final long now = System.currentTimeMillis();
+            for (TriggerFiring firing : batch) {
+                timer.record(Math.max(0, now - firing.timestamp()), TimeUnit.MILLISECONDS);
+            }
+        }
+        delivered.addAndGet(batch.size());
+        batch.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package me.hanane.trigger.expression;
+
+import me.hanane.trigger.expression.Expression.Relation;
+
+/**
+ * A trigger expression compiled for recorded observations held as columns,
+ * one {@code double[]} per {@link me.hanane.data.entity.TriggerField} indexed
+ * by ordinal. A block of rows is evaluated at a time: every comparison is a
+ * tight loop over one or two columns, and {@code &&} and {@code ||} combine
+ * whole blocks of outcomes, so no object is created per row. Negations are
+ * pushed down to the comparisons, and missing values (NaN) fail every
+ * comparison, so a missing value never makes an expression true, as in
+ * {@link CompiledExpression}.
+ *
+ * Instances are shared; the scratch buffers belong to the caller.
+ */
+public final class ColumnExpression {
+
+    private final String text;
+    private final Node root;
+    private final int depth;
+
+    ColumnExpression(String text, Node root, int depth) {
+        this.text = text;
+        this.root = root;
+        this.depth = depth;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Scratch buffers for blocks of up to {@code length} rows.
+     */
+    public boolean[][] scratch(int length) {
+        return new boolean[depth][length];
+    }
+
+    /**
+     * Writes the outcome for rows {@code from} to {@code from + length} of
+     * the columns into the first {@code length} elements of {@code out}.
+     */
+    public void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch) {
+        root.evaluate(columns, from, length, out, scratch);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    sealed interface Node {
+        void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch);
+    }
+
+    record Constant(int column, Relation relation, double constant) implements Node {
+
+        @Override
+        public void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch) {
+            final double[] values = columns[column];
+            // one loop per relation keeps the loop bodies branch-free
+            switch (relation) {
+                case GREATER_THAN -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = values[from + i] > constant;
+                    }
+                }
+                case GREATER_OR_EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = values[from + i] >= constant;
+                    }
+                }
+                case LESS_THAN -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = values[from + i] < constant;
+                    }
+                }
+                case LESS_OR_EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = values[from + i] <= constant;
+                    }
+                }
+                case EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = values[from + i] == constant;
+                    }
+                }
+                case NOT_EQUAL -> {
+                    // NaN is unequal to everything, but a missing value should not match
+                    for (int i = 0; i < length; i++) {
+                        final double value = values[from + i];
+                        out[i] = value != constant && value == value && constant == constant;
+                    }
+                }
+            }
+        }
+    }
+
+    record Columns(int left, Relation relation, int right) implements Node {
+
+        @Override
+        public void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch) {
+            final double[] first = columns[left];
+            final double[] second = columns[right];
+            switch (relation) {
+                case GREATER_THAN -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = first[from + i] > second[from + i];
+                    }
+                }
+                case GREATER_OR_EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = first[from + i] >= second[from + i];
+                    }
+                }
+                case LESS_THAN -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = first[from + i] < second[from + i];
+                    }
+                }
+                case LESS_OR_EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = first[from + i] <= second[from + i];
+                    }
+                }
+                case EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = first[from + i] == second[from + i];
+                    }
+                }
+                case NOT_EQUAL -> {
+                    for (int i = 0; i < length; i++) {
+                        final double a = first[from + i];
+                        final double b = second[from + i];
+                        out[i] = a != b && a == a && b == b;
+                    }
+                }
+            }
+        }
+    }
+
+    record And(Node left, Node right, int level) implements Node {
+
+        @Override
+        public void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch) {
+            left.evaluate(columns, from, length, out, scratch);
+            final boolean[] other = scratch[level];
+            right.evaluate(columns, from, length, other, scratch);
+            for (int i = 0; i < length; i++) {
+                out[i] &= other[i];
+            }
+        }
+    }
+
+    record Or(Node left, Node right, int level) implements Node {
+
+        @Override
+        public void evaluate(double[][] columns, int from, int length, boolean[] out, boolean[][] scratch) {
+            left.evaluate(columns, from, length, out, scratch);
+            final boolean[] other = scratch[level];
+            right.evaluate(columns, from, length, other, scratch);
+            for (int i = 0; i < length; i++) {
+                out[i] |= other[i];
+            }
+        }
+    }
+}
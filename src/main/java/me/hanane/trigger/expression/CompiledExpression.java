@@ -0,0 +1,39 @@
+package me.hanane.trigger.expression;
+
+import java.lang.invoke.MethodHandle;
+import me.hanane.weather.WeatherInfo;
+
+/**
+ * A trigger expression compiled to a single {@code (WeatherInfo)boolean}
+ * method handle chain. Instances are shared between all triggers with the
+ * same expression text.
+ */
+public final class CompiledExpression {
+
+    private final String text;
+    private final MethodHandle predicate;
+
+    CompiledExpression(String text, MethodHandle predicate) {
+        this.text = text;
+        this.predicate = predicate;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean test(WeatherInfo weatherInfo) {
+        try {
+            return (boolean) predicate.invokeExact(weatherInfo);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
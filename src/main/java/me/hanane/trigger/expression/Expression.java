@@ -0,0 +1,82 @@
+package me.hanane.trigger.expression;
+
+/**
+ * Syntax tree of a trigger expression such as
+ * {@code temp > 30 && wind.speed > 10}. Trees are only built once per
+ * expression text and then compiled by {@link ExpressionCompiler}.
+ */
+public sealed interface Expression {
+
+    record Comparison(Operand left, Relation relation, Operand right) implements Expression {
+    }
+
+    record And(Expression left, Expression right) implements Expression {
+    }
+
+    record Or(Expression left, Expression right) implements Expression {
+    }
+
+    record Not(Expression operand) implements Expression {
+    }
+
+    sealed interface Operand {
+    }
+
+    /**
+     * A weather value, either qualified ({@code wind.speed}) or bare
+     * ({@code temp}).
+     */
+    record Field(String part, String name, int position) implements Operand {
+    }
+
+    record Number(double value, int position) implements Operand {
+    }
+
+    enum Relation {
+
+        GREATER_THAN(">"),
+        GREATER_OR_EQUAL(">="),
+        LESS_THAN("<"),
+        LESS_OR_EQUAL("<="),
+        EQUAL("=="),
+        NOT_EQUAL("!=");
+
+        private final String symbol;
+
+        Relation(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        /**
+         * The relation that holds with both sides swapped.
+         */
+        public Relation flip() {
+            return switch (this) {
+                case GREATER_THAN -> LESS_THAN;
+                case GREATER_OR_EQUAL -> LESS_OR_EQUAL;
+                case LESS_THAN -> GREATER_THAN;
+                case LESS_OR_EQUAL -> GREATER_OR_EQUAL;
+                case EQUAL, NOT_EQUAL -> this;
+            };
+        }
+
+        /**
+         * The relation that holds exactly when this one does not, as long as
+         * neither side is missing.
+         */
+        public Relation negate() {
+            return switch (this) {
+                case GREATER_THAN -> LESS_OR_EQUAL;
+                case GREATER_OR_EQUAL -> LESS_THAN;
+                case LESS_THAN -> GREATER_OR_EQUAL;
+                case LESS_OR_EQUAL -> GREATER_THAN;
+                case EQUAL -> NOT_EQUAL;
+                case NOT_EQUAL -> EQUAL;
+            };
+        }
+    }
+}
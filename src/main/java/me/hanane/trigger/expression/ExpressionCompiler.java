@@ -0,0 +1,357 @@
+package me.hanane.trigger.expression;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.trigger.expression.Expression.And;
+import me.hanane.trigger.expression.Expression.Comparison;
+import me.hanane.trigger.expression.Expression.Field;
+import me.hanane.trigger.expression.Expression.Not;
+import me.hanane.trigger.expression.Expression.Number;
+import me.hanane.trigger.expression.Expression.Operand;
+import me.hanane.trigger.expression.Expression.Or;
+import me.hanane.trigger.expression.Expression.Relation;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles trigger expressions into method handle chains that call the
+ * {@link WeatherInfo} record accessors directly, so evaluating a trigger does
+ * not walk a syntax tree.
+ *
+ * Values are named by the record component, qualified by the part they belong
+ * to ({@code main.temp}, {@code wind.speed}, {@code weather.cloudiness}). Bare
+ * names are looked up in {@link MainInfo} first and then in {@link Weather},
+ * and {@code rain} is short for {@code weather.rainLastHour}. A value of a
+ * missing part reads as NaN and fails every comparison.
+ *
+ * A comparison with a missing value is unknown rather than false, and a
+ * negation of unknown is still unknown, so it cannot make an expression true
+ * either. Negations are pushed down to the comparisons before compiling
+ * ({@code !(temp > 30 || rain > 0)} becomes {@code temp <= 30 && rain <= 0}),
+ * which leaves only {@code &&} and {@code ||} over comparisons that fail on
+ * NaN, and an expression then holds exactly when it is known to.
+ *
+ * Compiled expressions, for snapshots and for columns, are cached by their
+ * text in LRU caches of bounded size.
+ */
+@Component
+public class ExpressionCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<String, String> ALIASES = Map.of("rain", "weather.rainLastHour");
+
+    private static final MethodHandle FALSE = MethodHandles.dropArguments(
+            MethodHandles.constant(boolean.class, false), 0, WeatherInfo.class);
+    private static final MethodHandle TRUE = MethodHandles.dropArguments(
+            MethodHandles.constant(boolean.class, true), 0, WeatherInfo.class);
+
+    private static final Map<String, TriggerField> COLUMNS = Map.of(
+            "main.temp", TriggerField.TEMPERATURE,
+            "main.feels_like", TriggerField.FEELS_LIKE,
+            "main.humidity", TriggerField.HUMIDITY,
+            "main.pressure", TriggerField.PRESSURE,
+            "wind.speed", TriggerField.WIND_SPEED,
+            "wind.gust", TriggerField.WIND_GUST,
+            "weather.cloudiness", TriggerField.CLOUDINESS,
+            "weather.rainLastHour", TriggerField.RAIN);
+
+    private final ExpiringCache<String, CompiledExpression> cache;
+    private final Duration cacheTtl;
+    private final ExpiringCache<String, ColumnExpression> columnCache;
+
+    public ExpressionCompiler(@Value("${htriggers.trigger.expression.cache-size:1000}") int cacheSize,
+                              @Value("${htriggers.trigger.expression.cache-ttl:1d}") Duration cacheTtl) {
+        this.cache = new ExpiringCache<>(cacheSize);
+        this.columnCache = new ExpiringCache<>(cacheSize);
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Returns the compiled expression, parsing it only if the text is not
+     * cached.
+     *
+     * @throws ExpressionException if the expression is invalid
+     */
+    public CompiledExpression compile(String text) {
+        final String key = text.strip();
+        final ExpiringCache.Entry<CompiledExpression> cached = cache.get(key);
+        if (cached != null) {
+            return cached.value();
+        }
+        final CompiledExpression compiled = new CompiledExpression(key, compile(ExpressionParser.parse(key)));
+        cache.put(key, compiled, cacheTtl);
+        return compiled;
+    }
+
+    /**
+     * Compiles the expression for evaluation over columns of recorded
+     * observations, which only hold the values of a {@link TriggerField}.
+     *
+     * @throws ExpressionException if the expression is invalid or uses a value
+     *         that is not recorded
+     */
+    public ColumnExpression compileColumns(String text) {
+        final String key = text.strip();
+        final ExpiringCache.Entry<ColumnExpression> cached = columnCache.get(key);
+        if (cached != null) {
+            return cached.value();
+        }
+        final ColumnExpression.Node root = columns(ExpressionParser.parse(key), 0);
+        final ColumnExpression compiled = new ColumnExpression(key, root, depth(root));
+        columnCache.put(key, compiled, cacheTtl);
+        return compiled;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Builds the column tree; a binary node at the given level keeps its right
+     * side in that level's scratch buffer, so its left side may reuse the
+     * level and its right side starts one level deeper.
+     */
+    private ColumnExpression.Node columns(Expression expression, int level) {
+        if (expression instanceof And and) {
+            return new ColumnExpression.And(columns(and.left(), level), columns(and.right(), level + 1), level);
+        }
+        if (expression instanceof Or or) {
+            return new ColumnExpression.Or(columns(or.left(), level), columns(or.right(), level + 1), level);
+        }
+        if (expression instanceof Not not) {
+            return columns(negate(not.operand()), level);
+        }
+        final Comparison comparison = (Comparison) expression;
+        final Operand left = comparison.left();
+        final Operand right = comparison.right();
+        if (left instanceof Number number && right instanceof Number) {
+            throw new ExpressionException("A comparison needs at least one weather value", number.position());
+        }
+        if (left instanceof Number number) {
+            return new ColumnExpression.Constant(column((Field) right), comparison.relation().flip(), number.value());
+        }
+        if (right instanceof Number number) {
+            return new ColumnExpression.Constant(column((Field) left), comparison.relation(), number.value());
+        }
+        return new ColumnExpression.Columns(column((Field) left), comparison.relation(), column((Field) right));
+    }
+
+    private static int column(Field field) {
+        final ResolvedValue value = resolve(field);
+        final TriggerField column = COLUMNS.get(value.qualifiedName());
+        if (column == null) {
+            throw new ExpressionException("'" + value.qualifiedName() + "' is not recorded in the observation history",
+                    field.position());
+        }
+        return column.ordinal();
+    }
+
+    private static int depth(ColumnExpression.Node node) {
+        if (node instanceof ColumnExpression.And and) {
+            return Math.max(depth(and.left()), Math.max(and.level() + 1, depth(and.right())));
+        }
+        if (node instanceof ColumnExpression.Or or) {
+            return Math.max(depth(or.left()), Math.max(or.level() + 1, depth(or.right())));
+        }
+        return 0;
+    }
+
+    /**
+     * Builds a {@code (WeatherInfo)boolean} handle for the tree.
+     */
+    private MethodHandle compile(Expression expression) {
+        if (expression instanceof And and) {
+            return MethodHandles.guardWithTest(compile(and.left()), compile(and.right()), FALSE);
+        }
+        if (expression instanceof Or or) {
+            return MethodHandles.guardWithTest(compile(or.left()), TRUE, compile(or.right()));
+        }
+        if (expression instanceof Not not) {
+            return compile(negate(not.operand()));
+        }
+        return compare((Comparison) expression);
+    }
+
+    /**
+     * The negation of the expression with the {@code !} pushed down to the
+     * comparisons, by De Morgan's laws.
+     */
+    static Expression negate(Expression expression) {
+        if (expression instanceof And and) {
+            return new Or(negate(and.left()), negate(and.right()));
+        }
+        if (expression instanceof Or or) {
+            return new And(negate(or.left()), negate(or.right()));
+        }
+        if (expression instanceof Not not) {
+            return not.operand();
+        }
+        final Comparison comparison = (Comparison) expression;
+        return new Comparison(comparison.left(), comparison.relation().negate(), comparison.right());
+    }
+
+    private MethodHandle compare(Comparison comparison) {
+        final Operand left = comparison.left();
+        final Operand right = comparison.right();
+        if (left instanceof Number number && right instanceof Number) {
+            throw new ExpressionException("A comparison needs at least one weather value", number.position());
+        }
+        if (left instanceof Number number) {
+            // 30 < temp is compiled as temp > 30
+            return compare(field((Field) right), comparison.relation().flip(), number.value());
+        }
+        if (right instanceof Number number) {
+            return compare(field((Field) left), comparison.relation(), number.value());
+        }
+        final MethodHandle both = MethodHandles.filterArguments(relation(comparison.relation()), 0,
+                field((Field) left), field((Field) right));
+        return MethodHandles.permuteArguments(both, methodType(boolean.class, WeatherInfo.class), 0, 0);
+    }
+
+    private static MethodHandle compare(MethodHandle value, Relation relation, double constant) {
+        final MethodHandle test = MethodHandles.insertArguments(relation(relation), 1, constant);
+        return MethodHandles.filterArguments(test, 0, value);
+    }
+
+    /**
+     * Builds a {@code (WeatherInfo)double} handle reading the named value.
+     */
+    private static MethodHandle field(Field field) {
+        final ResolvedValue value = resolve(field);
+        return read(part(value.type()), value.type(), value.component());
+    }
+
+    /**
+     * Finds the record component a value name refers to.
+     */
+    private static ResolvedValue resolve(Field field) {
+        final String label = field.part() == null ? field.name() : field.part() + "." + field.name();
+        String part = field.part();
+        String name = field.name();
+        if (part == null && ALIASES.containsKey(name)) {
+            final String alias = ALIASES.get(name);
+            part = alias.substring(0, alias.indexOf('.'));
+            name = alias.substring(alias.indexOf('.') + 1);
+        }
+        if (part == null) {
+            part = component(MainInfo.class, name) != null ? "main" : "weather";
+        }
+        final Class<?> type = switch (part) {
+            case "main" -> MainInfo.class;
+            case "wind" -> Wind.class;
+            case "weather" -> Weather.class;
+            default -> throw new ExpressionException("Unknown part '" + part + "'", field.position());
+        };
+        final RecordComponent component = component(type, name);
+        if (component == null || !isNumeric(component.getType())) {
+            throw new ExpressionException("Unknown value '" + label + "'", field.position());
+        }
+        return new ResolvedValue(part, type, component);
+    }
+
+    /**
+     * Chains the part accessor with the value accessor, reading NaN when the
+     * part is missing.
+     */
+    private static MethodHandle read(RecordComponent part, Class<?> type, RecordComponent component) {
+        try {
+            final MethodHandle value = LOOKUP.unreflect(component.getAccessor())
+                    .asType(methodType(double.class, type));
+            final MethodHandle missing = MethodHandles.dropArguments(
+                    MethodHandles.constant(double.class, Double.NaN), 0, type);
+            final MethodHandle isNull = LOOKUP.findStatic(Objects.class, "isNull",
+                    methodType(boolean.class, Object.class)).asType(methodType(boolean.class, type));
+            final MethodHandle guarded = MethodHandles.guardWithTest(isNull, missing, value);
+            return MethodHandles.filterArguments(guarded, 0, LOOKUP.unreflect(part.getAccessor()));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static RecordComponent part(Class<?> type) {
+        for (RecordComponent component : WeatherInfo.class.getRecordComponents()) {
+            if (component.getType() == type) {
+                return component;
+            }
+        }
+        throw new IllegalStateException("WeatherInfo has no " + type.getSimpleName());
+    }
+
+    private static RecordComponent component(Class<?> type, String name) {
+        for (RecordComponent component : type.getRecordComponents()) {
+            if (component.getName().equals(name)) {
+                return component;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return type == double.class || type == float.class || type == long.class || type == int.class;
+    }
+
+    private static MethodHandle relation(Relation relation) {
+        final String name = switch (relation) {
+            case GREATER_THAN -> "greaterThan";
+            case GREATER_OR_EQUAL -> "greaterOrEqual";
+            case LESS_THAN -> "lessThan";
+            case LESS_OR_EQUAL -> "lessOrEqual";
+            case EQUAL -> "equal";
+            case NOT_EQUAL -> "notEqual";
+        };
+        return findStatic(name, methodType(boolean.class, double.class, double.class));
+    }
+
+    private static MethodHandle findStatic(String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(ExpressionCompiler.class, name, type);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static boolean greaterThan(double value, double other) {
+        return value > other;
+    }
+
+    private static boolean greaterOrEqual(double value, double other) {
+        return value >= other;
+    }
+
+    private static boolean lessThan(double value, double other) {
+        return value < other;
+    }
+
+    private static boolean lessOrEqual(double value, double other) {
+        return value <= other;
+    }
+
+    private static boolean equal(double value, double other) {
+        return value == other;
+    }
+
+    private static boolean notEqual(double value, double other) {
+        // NaN is unequal to everything, but a missing value should not match
+        return value != other && !Double.isNaN(value) && !Double.isNaN(other);
+    }
+
+    private record ResolvedValue(String part, Class<?> type, RecordComponent component) {
+
+        private String qualifiedName() {
+            return part + "." + component.getName();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package me.hanane.trigger.expression;
+
+/**
+ * A trigger expression that cannot be parsed or refers to an unknown value.
+ */
+public class ExpressionException extends IllegalArgumentException {
+
+    private final int position;
+
+    public ExpressionException(String message, int position) {
+        super(message + " at position " + (position + 1));
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,143 @@
+package me.hanane.trigger.expression;
+
+import me.hanane.trigger.expression.Expression.And;
+import me.hanane.trigger.expression.Expression.Comparison;
+import me.hanane.trigger.expression.Expression.Field;
+import me.hanane.trigger.expression.Expression.Not;
+import me.hanane.trigger.expression.Expression.Number;
+import me.hanane.trigger.expression.Expression.Operand;
+import me.hanane.trigger.expression.Expression.Or;
+import me.hanane.trigger.expression.Expression.Relation;
+
+/**
+ * Recursive descent parser for trigger expressions:
+ *
+ * <pre>
+ * or         = and ("||" and)*
+ * and        = unary ("&amp;&amp;" unary)*
+ * unary      = "!" unary | "(" or ")" | comparison
+ * comparison = operand (">" | ">=" | "&lt;" | "&lt;=" | "==" | "!=") operand
+ * operand    = number | name ["." name]
+ * </pre>
+ */
+final class ExpressionParser {
+
+    private final String text;
+    private int position;
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    static Expression parse(String text) {
+        final ExpressionParser parser = new ExpressionParser(text);
+        final Expression expression = parser.or();
+        parser.skipWhitespace();
+        if (parser.position < text.length()) {
+            throw new ExpressionException("Unexpected '" + text.charAt(parser.position) + "'", parser.position);
+        }
+        return expression;
+    }
+
+    private Expression or() {
+        Expression expression = and();
+        while (accept("||")) {
+            expression = new Or(expression, and());
+        }
+        return expression;
+    }
+
+    private Expression and() {
+        Expression expression = unary();
+        while (accept("&&")) {
+            expression = new And(expression, unary());
+        }
+        return expression;
+    }
+
+    private Expression unary() {
+        if (accept("!")) {
+            return new Not(unary());
+        }
+        if (accept("(")) {
+            final Expression expression = or();
+            expect(")");
+            return expression;
+        }
+        final Operand left = operand();
+        final Relation relation = relation();
+        return new Comparison(left, relation, operand());
+    }
+
+    private Relation relation() {
+        // two-character symbols first so ">=" is not read as ">"
+        for (String symbol : new String[]{">=", "<=", "==", "!=", ">", "<"}) {
+            if (accept(symbol)) {
+                for (Relation relation : Relation.values()) {
+                    if (relation.getSymbol().equals(symbol)) {
+                        return relation;
+                    }
+                }
+            }
+        }
+        throw new ExpressionException("Expected a comparison", position);
+    }
+
+    private Operand operand() {
+        skipWhitespace();
+        final int start = position;
+        if (position < text.length() && (Character.isDigit(peek()) || peek() == '-' || peek() == '.')) {
+            position++;
+            while (position < text.length() && (Character.isDigit(peek()) || peek() == '.')) {
+                position++;
+            }
+            try {
+                return new Number(Double.parseDouble(text.substring(start, position)), start);
+            } catch (NumberFormatException exception) {
+                throw new ExpressionException("Invalid number", start);
+            }
+        }
+        final String first = name();
+        if (position < text.length() && peek() == '.') {
+            position++;
+            return new Field(first, name(), start);
+        }
+        return new Field(null, first, start);
+    }
+
+    private String name() {
+        final int start = position;
+        while (position < text.length() && Character.isJavaIdentifierPart(peek())) {
+            position++;
+        }
+        if (start == position || !Character.isJavaIdentifierStart(text.charAt(start))) {
+            throw new ExpressionException("Expected a number or a name", start);
+        }
+        return text.substring(start, position);
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            throw new ExpressionException("Expected '" + symbol + "'", position);
+        }
+    }
+
+    private boolean accept(String symbol) {
+        skipWhitespace();
+        if (text.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private char peek() {
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(peek())) {
+            position++;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package me.hanane.trigger.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only log of trigger state transitions and firings, written through
+ * memory-mapped segment files.
+ *
+ * Records have a fixed size of 29 bytes: type, trigger id, timestamp, value
+ * and a CRC32C of the rest. A segment is rolled once it is full. Writers that
+ * produce many records, such as the evaluation of one location, encode them
+ * into a {@link Batch} of their own and append it in one go, so they only
+ * contend for the log once per batch.
+ *
+ * A snapshot stores the state of every trigger together with the log position
+ * it covers, so startup only replays the records written after it. Replay
+ * stops at the first record that is missing or fails its checksum, even if
+ * later segments follow, since the states after a gap cannot be trusted. The
+ * previous snapshot is kept as a fallback, and only segments covered by both
+ * are deleted once they are older than the retention. Recovery fails if
+ * neither snapshot can be read and segments are already gone.
+ */
+@Component
+public class TriggerEventLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TriggerEventLog.class);
+
+    static final int RECORD_BYTES = 1 + Long.BYTES + Long.BYTES + Double.BYTES + Integer.BYTES;
+    private static final int PAYLOAD_BYTES = RECORD_BYTES - Integer.BYTES;
+    private static final int SNAPSHOT_MAGIC = 0x54534E31;
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String PREVIOUS_SNAPSHOT = "snapshot.previous.bin";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration retention;
+    private final CRC32C crc = new CRC32C();
+
+    private long segment;
+    private MappedByteBuffer buffer;
+
+    public TriggerEventLog(@Value("${htriggers.trigger.log.directory:data/trigger-log}") String directory,
+                           @Value("${htriggers.trigger.log.segment-size:16MB}") DataSize segmentSize,
+                           @Value("${htriggers.trigger.log.retention:7d}") Duration retention) {
+        this.directory = Path.of(directory);
+        // whole records only, so a record never spans two segments
+        this.segmentSize = (int) (segmentSize.toBytes() / RECORD_BYTES * RECORD_BYTES);
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        final List<Long> segments = segments();
+        segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        buffer = map(segment);
+        buffer.position(replay(segment, 0, (type, triggerId, timestamp, value) -> { }).end());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        buffer.force();
+    }
+
+    public synchronized void append(TriggerEventType type, long triggerId, long timestamp, double value) {
+        if (buffer.remaining() < RECORD_BYTES) {
+            roll();
+        }
+        encode(buffer, crc, type, triggerId, timestamp, value);
+    }
+
+    /**
+     * A new, empty batch of records for one writer.
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Appends encoded records, rolling the segment as often as needed.
+     */
+    private synchronized void append(ByteBuffer records) {
+        while (records.hasRemaining()) {
+            if (buffer.remaining() < RECORD_BYTES) {
+                roll();
+            }
+            final int length = Math.min(records.remaining(), buffer.remaining() / RECORD_BYTES * RECORD_BYTES);
+            buffer.put(records.slice(records.position(), length));
+            records.position(records.position() + length);
+        }
+    }
+
+    private static void encode(ByteBuffer target, CRC32C checksum, TriggerEventType type, long triggerId,
+                               long timestamp, double value) {
+        final int start = target.position();
+        target.put(type.code()).putLong(triggerId).putLong(timestamp).putDouble(value);
+        checksum.reset();
+        checksum.update(target.slice(start, PAYLOAD_BYTES));
+        target.putInt((int) checksum.getValue());
+    }
+
+    /**
+     * Rebuilds the state of every trigger from the last snapshot and the
+     * records written after it.
+     */
+    public Map<Long, TriggerState> recover() throws IOException {
+        final Map<Long, TriggerState> states = new HashMap<>();
+        final Position from = readSnapshot(states);
+        int replayed = 0;
+        for (long number : segments()) {
+            if (number < from.segment()) {
+                continue;
+            }
+            final int start = number == from.segment() ? from.offset() : 0;
+            final Replay replay = replay(number, start, (type, triggerId, timestamp, value) -> {
+                if (type == TriggerEventType.REMOVED) {
+                    states.remove(triggerId);
+                } else {
+                    states.put(triggerId, states.getOrDefault(triggerId, TriggerState.INITIAL).apply(type, timestamp));
+                }
+            });
+            replayed += (replay.end() - start) / RECORD_BYTES;
+            if (!replay.complete()) {
+                if (number != segment) {
+                    LOGGER.warn("Trigger log segment {} ends early at offset {}, not replaying later segments",
+                            number, replay.end());
+                }
+                break;
+            }
+        }
+        LOGGER.info("Recovered {} trigger states, replayed {} events", states.size(), replayed);
+        return states;
+    }
+
+    /**
+     * Writes a snapshot of the states handed to the consumer, keeping the
+     * last one as a fallback, and deletes the segments neither needs. The
+     * position is taken before the states are read; records between the two
+     * are replayed again, which is harmless because every record carries
+     * absolute values.
+     */
+    public void snapshot(Consumer<StateConsumer> states) throws IOException {
+        final Position position;
+        synchronized (this) {
+            buffer.force();
+            position = new Position(segment, buffer.position());
+        }
+        final Path target = directory.resolve(SNAPSHOT);
+        final Path previous = directory.resolve(PREVIOUS_SNAPSHOT);
+        final Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        final CRC32C checksum = new CRC32C();
+        final int[] count = new int[1];
+        try (DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)), checksum))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeLong(position.segment());
+            output.writeInt(position.offset());
+            states.accept((triggerId, active, transitionedAt, firedAt) -> {
+                try {
+                    output.writeBoolean(true);
+                    output.writeLong(triggerId);
+                    output.writeBoolean(active);
+                    output.writeLong(transitionedAt);
+                    output.writeLong(firedAt);
+                    count[0]++;
+                } catch (IOException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            });
+            output.writeBoolean(false);
+            output.writeInt((int) checksum.getValue());
+        }
+        // only a readable snapshot is worth keeping as the fallback
+        final Position kept = read(target, new HashMap<>());
+        if (kept != null) {
+            Files.move(target, previous, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.debug("Saved {} trigger states at segment {} offset {}", count[0], position.segment(), position.offset());
+        final Position fallback = kept != null ? kept : read(previous, new HashMap<>());
+        if (fallback != null) {
+            deleteExpired(Math.min(position.segment(), fallback.segment()));
+        }
+    }
+
+    /**
+     * Reads the newest readable snapshot into the states and returns the
+     * position to replay from.
+     *
+     * @throws IOException if no snapshot can be read although segments it
+     *         covered have been deleted
+     */
+    private Position readSnapshot(Map<Long, TriggerState> states) throws IOException {
+        for (String name : new String[]{SNAPSHOT, PREVIOUS_SNAPSHOT}) {
+            final Position position = read(directory.resolve(name), states);
+            if (position != null) {
+                return position;
+            }
+        }
+        final List<Long> segments = segments();
+        if (!segments.isEmpty() && segments.get(0) > 0) {
+            throw new IOException("No readable trigger snapshot in " + directory + " and the segments before "
+                    + segments.get(0) + " have been deleted");
+        }
+        return new Position(0, 0);
+    }
+
+    /**
+     * Reads a snapshot into the states, or returns {@code null} if it is
+     * missing or unreadable.
+     */
+    private Position read(Path file, Map<Long, TriggerState> states) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        final CRC32C checksum = new CRC32C();
+        try (DataInputStream input = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), checksum))) {
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a trigger snapshot");
+            }
+            final Position position = new Position(input.readLong(), input.readInt());
+            final Map<Long, TriggerState> read = new HashMap<>();
+            while (input.readBoolean()) {
+                read.put(input.readLong(), new TriggerState(input.readBoolean(), input.readLong(), input.readLong()));
+            }
+            final int expected = (int) checksum.getValue();
+            if (input.readInt() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            states.putAll(read);
+            return position;
+        } catch (IOException exception) {
+            LOGGER.warn("Ignoring unreadable trigger snapshot {}: {}", file, exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Visits the valid records of the segment from the offset on and returns
+     * the offset after the last one, and whether the segment was read to its
+     * end rather than stopping at a missing or corrupt record.
+     */
+    private Replay replay(long number, int offset, EventVisitor visitor) throws IOException {
+        final Path file = segmentFile(number);
+        final MappedByteBuffer records;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final CRC32C checksum = new CRC32C();
+        while (offset + RECORD_BYTES <= records.limit()) {
+            if (records.get(offset) == 0) {
+                return new Replay(offset, false);
+            }
+            checksum.reset();
+            checksum.update(records.slice(offset, PAYLOAD_BYTES));
+            if (records.getInt(offset + PAYLOAD_BYTES) != (int) checksum.getValue()) {
+                LOGGER.warn("Trigger log {} is corrupt at offset {}, ignoring the rest", file, offset);
+                return new Replay(offset, false);
+            }
+            visitor.visit(TriggerEventType.of(records.get(offset)), records.getLong(offset + 1),
+                    records.getLong(offset + 9), records.getDouble(offset + 17));
+            offset += RECORD_BYTES;
+        }
+        return new Replay(offset, true);
+    }
+
+    private void roll() {
+        buffer.force();
+        segment++;
+        try {
+            buffer = map(segment);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Could not roll trigger log to segment " + segment, exception);
+        }
+    }
+
+    private MappedByteBuffer map(long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void deleteExpired(long covered) throws IOException {
+        final long cutoff = System.currentTimeMillis() - retention.toMillis();
+        for (long number : segments()) {
+            final Path file = segmentFile(number);
+            if (number < covered && Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                Files.delete(file);
+                LOGGER.debug("Deleted trigger log segment {}", file);
+            }
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("events-\\d{20}\\.log"))
+                    .map(name -> Long.parseLong(name.substring(7, 27)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentFile(long number) {
+        return directory.resolve(String.format("events-%020d.log", number));
+    }
+
+    private record Position(long segment, int offset) {
+    }
+
+    private record Replay(int end, boolean complete) {
+    }
+
+    /**
+     * Records of one writer, encoded and checksummed outside the log's lock
+     * and appended together by {@link #commit()}. Not thread-safe.
+     */
+    public final class Batch {
+
+        private final CRC32C checksum = new CRC32C();
+        private ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 16);
+
+        private Batch() {
+        }
+
+        public void add(TriggerEventType type, long triggerId, long timestamp, double value) {
+            if (records.remaining() < RECORD_BYTES) {
+                records = ByteBuffer.allocate(records.capacity() * 2).put(records.flip());
+            }
+            encode(records, checksum, type, triggerId, timestamp, value);
+        }
+
+        /**
+         * Appends the records added since the last commit to the log.
+         */
+        public void commit() {
+            if (records.position() == 0) {
+                return;
+            }
+            append(records.flip());
+            records.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EventVisitor {
+        void visit(TriggerEventType type, long triggerId, long timestamp, double value);
+    }
+
+    @FunctionalInterface
+    public interface StateConsumer {
+        void accept(long triggerId, boolean active, long transitionedAt, long firedAt);
+    }
+}
@@ -0,0 +1,26 @@
+package me.hanane.trigger.log;
+
+/**
+ * Kind of a record in the {@link TriggerEventLog}.
+ */
+public enum TriggerEventType {
+
+    ACTIVATED,
+    RELEASED,
+    /**
+     * The trigger became active and fired.
+     */
+    FIRED,
+    /**
+     * The trigger was unregistered and its state discarded.
+     */
+    REMOVED;
+
+    byte code() {
+        return (byte) (ordinal() + 1);
+    }
+
+    static TriggerEventType of(byte code) {
+        return values()[code - 1];
+    }
+}
@@ -0,0 +1,18 @@
+package me.hanane.trigger.log;
+
+/**
+ * State of one trigger as rebuilt from the {@link TriggerEventLog}.
+ */
+public record TriggerState(boolean active, long transitionedAt, long firedAt) {
+
+    static final TriggerState INITIAL = new TriggerState(false, 0, 0);
+
+    TriggerState apply(TriggerEventType type, long timestamp) {
+        return switch (type) {
+            case ACTIVATED -> new TriggerState(true, timestamp, firedAt);
+            case RELEASED -> new TriggerState(false, timestamp, firedAt);
+            case FIRED -> new TriggerState(true, timestamp, timestamp);
+            case REMOVED -> INITIAL;
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package me.hanane.trigger.schedule;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A time of day in a time zone, for triggers that fire once a day. Times that
+ * fall into a daylight saving gap move forward by the length of the gap.
+ */
+public record DailySchedule(LocalTime time, ZoneId zone) {
+
+    /**
+     * First occurrence strictly after the given time.
+     */
+    public long next(long afterMillis) {
+        final LocalDate today = Instant.ofEpochMilli(afterMillis).atZone(zone).toLocalDate();
+        final long occurrence = at(today);
+        return occurrence > afterMillis ? occurrence : at(today.plusDays(1));
+    }
+
+    /**
+     * Last occurrence at or before the given time.
+     */
+    public long previous(long atMillis) {
+        final LocalDate today = Instant.ofEpochMilli(atMillis).atZone(zone).toLocalDate();
+        final long occurrence = at(today);
+        return occurrence <= atMillis ? occurrence : at(today.minusDays(1));
+    }
+
+    private long at(LocalDate date) {
+        return ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+    }
+}
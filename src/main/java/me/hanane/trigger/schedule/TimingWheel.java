@@ -0,0 +1,186 @@
+package me.hanane.trigger.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each slot of a level
+ * spanning a whole turn of the level below, which covers 64^4 ticks ahead.
+ * Deadlines further out wait in an overflow list that is re-placed once per
+ * full turn of the top level.
+ *
+ * An item is placed on the lowest level whose slot group is the highest one
+ * in which its deadline differs from the current tick. When the current tick
+ * enters a slot of a higher level, that slot is cascaded: its items are placed
+ * again and end up on lower levels, or are due right away if their deadline
+ * is the current tick. Scheduling and cancelling only link or unlink a node,
+ * so both are O(1).
+ *
+ * Not thread-safe.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    @SuppressWarnings("unchecked")
+    private final Node<T>[][] slots = (Node<T>[][]) new Node<?>[LEVELS][SLOTS];
+    private Node<T> overflow;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the item for the deadline; a deadline that has passed is due
+     * on the next tick.
+     */
+    Node<T> schedule(T item, long deadlineMillis) {
+        final Node<T> node = new Node<>(item, deadlineMillis / tickMillis);
+        place(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Removes the node, returning {@code false} if it already expired or was
+     * cancelled.
+     */
+    boolean cancel(Node<T> node) {
+        if (node.level < 0) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel to the given time and returns the items that became due,
+     * earlier ticks first.
+     */
+    List<T> advance(long nowMillis) {
+        final List<T> due = new ArrayList<>();
+        final long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            if ((currentTick & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+                final Node<T> head = overflow;
+                overflow = null;
+                replace(head, due);
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    final int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+                    final Node<T> head = slots[level][slot];
+                    slots[level][slot] = null;
+                    replace(head, due);
+                }
+            }
+            final int slot = (int) (currentTick & MASK);
+            for (Node<T> node = slots[0][slot]; node != null; ) {
+                final Node<T> next = node.next;
+                expire(node, due);
+                node = next;
+            }
+            slots[0][slot] = null;
+        }
+        return due;
+    }
+
+    /**
+     * Places the cascaded nodes again, except those due on the current tick,
+     * whose slot on the lowest level has already been passed.
+     */
+    private void replace(Node<T> head, List<T> due) {
+        for (Node<T> node = head; node != null; ) {
+            final Node<T> next = node.next;
+            if (node.deadlineTick <= currentTick) {
+                expire(node, due);
+            } else {
+                place(node);
+            }
+            node = next;
+        }
+    }
+
+    private void expire(Node<T> node, List<T> due) {
+        node.prev = null;
+        node.next = null;
+        node.level = -1;
+        due.add(node.item);
+        size--;
+    }
+
+    private void place(Node<T> node) {
+        final long deadline = Math.max(node.deadlineTick, currentTick + 1);
+        final long difference = deadline ^ currentTick;
+        node.prev = null;
+        if ((difference >>> (BITS * LEVELS)) != 0) {
+            node.level = LEVELS;
+            node.next = overflow;
+            if (overflow != null) {
+                overflow.prev = node;
+            }
+            overflow = node;
+            return;
+        }
+        int level = 0;
+        while ((difference >>> (BITS * (level + 1))) != 0) {
+            level++;
+        }
+        final int slot = (int) ((deadline >>> (BITS * level)) & MASK);
+        node.level = level;
+        node.slot = slot;
+        node.next = slots[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        slots[level][slot] = node;
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (node.level == LEVELS) {
+            overflow = node.next;
+        } else {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.level = -1;
+    }
+
+    static final class Node<T> {
+
+        private final T item;
+        private final long deadlineTick;
+        private Node<T> prev;
+        private Node<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Node(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        T item() {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package me.hanane.trigger.schedule;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import me.hanane.trigger.TriggerRule;
+import me.hanane.trigger.log.TriggerEventLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps scheduled triggers on a {@link TimingWheel} and hands the ones that
+ * are due to a handler in batches, in deadline order. A fired trigger is put
+ * back on the wheel at its next occurrence.
+ *
+ * The last firing of every trigger is part of the event log snapshot. A
+ * trigger restored after a restart that missed its last occurrence by less
+ * than the catch-up window fires right away; older misses are skipped.
+ */
+@Component
+public class TriggerScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TriggerScheduler.class);
+
+    private final TimingWheel<TriggerRule> wheel;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Duration catchUp;
+    private final int batchSize;
+    private volatile Consumer<List<TriggerRule>> handler;
+
+    public TriggerScheduler(@Value("${htriggers.trigger.schedule.tick:PT1S}") Duration tick,
+                            @Value("${htriggers.trigger.schedule.catch-up:PT1H}") Duration catchUp,
+                            @Value("${htriggers.trigger.schedule.batch-size:500}") int batchSize) {
+        this.wheel = new TimingWheel<>(tick.toMillis(), System.currentTimeMillis());
+        this.catchUp = catchUp;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the handler due triggers are handed to. It runs on the scheduling
+     * thread, so it must hand off anything slow instead of blocking the tick.
+     */
+    public void start(Consumer<List<TriggerRule>> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Schedules the rule at its next occurrence, replacing any earlier version
+     * of it.
+     *
+     * @param firedAt when the trigger last fired, 0 if unknown
+     */
+    public synchronized void schedule(TriggerRule rule, long firedAt) {
+        cancel(rule.id());
+        final long now = System.currentTimeMillis();
+        final long previous = rule.schedule().previous(now);
+        final boolean missed = firedAt > 0 && firedAt < previous && now - previous <= catchUp.toMillis();
+        final long deadline = missed ? now : rule.schedule().next(now);
+        entries.put(rule.id(), new Entry(wheel.schedule(rule, deadline), firedAt));
+    }
+
+    /**
+     * Removes the trigger, returning {@code false} if it was not scheduled.
+     */
+    public synchronized boolean cancel(long triggerId) {
+        final Entry entry = entries.remove(triggerId);
+        if (entry == null) {
+            return false;
+        }
+        wheel.cancel(entry.node());
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void forEachState(TriggerEventLog.StateConsumer consumer) {
+        entries.forEach((id, entry) -> consumer.accept(id, false, 0, entry.firedAt()));
+    }
+
+    @Scheduled(fixedDelayString = "${htriggers.trigger.schedule.tick:PT1S}")
+    public void tick() {
+        final Consumer<List<TriggerRule>> current = handler;
+        if (current == null) {
+            return;
+        }
+        final List<TriggerRule> due;
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            due = wheel.advance(now);
+            for (TriggerRule rule : due) {
+                entries.put(rule.id(), new Entry(wheel.schedule(rule, rule.schedule().next(now)), now));
+            }
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            final List<TriggerRule> batch = new ArrayList<>(due.subList(from, Math.min(from + batchSize, due.size())));
+            try {
+                current.accept(batch);
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Could not fire {} scheduled triggers", batch.size(), exception);
+            }
+        }
+    }
+
+    private record Entry(TimingWheel.Node<TriggerRule> node, long firedAt) {
+    }
+}
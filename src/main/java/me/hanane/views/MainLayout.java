@@ -18,6 +18,7 @@ import me.hanane.components.appnav.AppNavItem;
 import me.hanane.security.SecurityService;
 import me.hanane.views.about.AboutView;
 import me.hanane.views.dashboard.DashboardView;
+import me.hanane.views.triggers.TriggerEditorView;
 import me.hanane.views.triggers.TriggerView;
 import me.hanane.views.triggers.TriggersView;
 
@@ -72,6 +73,7 @@ public class MainLayout extends AppLayout {
 
         nav.addItem(new AppNavItem("Dashboard", DashboardView.class, "la la-chart-area"));
         nav.addItem(new AppNavItem("Triggers", TriggerView.class, "la la-columns"));
+        nav.addItem(new AppNavItem("Trigger editor", TriggerEditorView.class, "la la-bell"));
         nav.addItem(new AppNavItem("About", AboutView.class, "la la-lightbulb"));
 
         return nav;
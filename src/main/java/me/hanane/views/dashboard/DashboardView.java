@@ -6,10 +6,12 @@ import com.github.appreciated.card.label.SecondaryLabel;
 import com.github.appreciated.card.label.TitleLabel;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Text;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.formlayout.FormLayout;
-import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
@@ -22,15 +24,21 @@ import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouteAlias;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.shared.Registration;
+import me.hanane.location.Gazetteer;
 import me.hanane.location.Geolocation;
-import me.hanane.location.GeolocationService;
+import me.hanane.location.GeolocationLookupService;
 import me.hanane.views.MainLayout;
 import me.hanane.weather.MainInfo;
 import me.hanane.weather.Weather;
-import me.hanane.weather.WeatherService;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherLookupService;
+import me.hanane.weather.WeatherPoller;
 import me.hanane.weather.Wind;
 
 import javax.annotation.security.RolesAllowed;
+import java.util.stream.Collectors;
 
 @PageTitle("Dashboard")
 @Route(value = "dashboard", layout = MainLayout.class)
@@ -38,16 +46,24 @@ import javax.annotation.security.RolesAllowed;
 @RolesAllowed("ADMIN")
 public class DashboardView extends VerticalLayout {
 
-    private final GeolocationService geolocationService;
-    private final WeatherService weatherService;
+    private final GeolocationLookupService geolocationLookupService;
+    private final WeatherLookupService weatherLookupService;
+    private final WeatherPoller weatherPoller;
+    private final Gazetteer gazetteer;
 
     private Component result = null;
-
-    public DashboardView(GeolocationService geolocationService, WeatherService weatherService) {
-        this.geolocationService = geolocationService;
-        this.weatherService = weatherService;
+    private Registration watchRegistration = null;
+
+    public DashboardView(GeolocationLookupService geolocationLookupService, WeatherLookupService weatherLookupService,
+                         WeatherPoller weatherPoller, Gazetteer gazetteer) {
+        this.geolocationLookupService = geolocationLookupService;
+        this.weatherLookupService = weatherLookupService;
+        this.weatherPoller = weatherPoller;
+        this.gazetteer = gazetteer;
         setSpacing(false);
 
+        addDetachListener(event -> stopWatching());
+
 
         setSizeFull();
         setJustifyContentMode(JustifyContentMode.CENTER);
@@ -59,6 +75,22 @@ public class DashboardView extends VerticalLayout {
         );
     }
 
+    private ComboBox<Gazetteer.Place> createCityField() {
+        final ComboBox<Gazetteer.Place> comboBox = new ComboBox<>();
+        comboBox.getElement().setAttribute("aria-label", "search");
+        comboBox.setClearButtonVisible(true);
+        comboBox.setItemLabelGenerator(Gazetteer.Place::label);
+        // suggestions come from the offline gazetteer, no provider call per keystroke
+        comboBox.setItems(query -> gazetteer.suggest(query.getFilter().orElse(""), query.getOffset() + query.getLimit())
+                .stream()
+                .skip(query.getOffset()));
+        // cities missing from the gazetteer can still be typed in and geocoded remotely
+        comboBox.setAllowCustomValue(true);
+        comboBox.addCustomValueSetListener(event ->
+                comboBox.setValue(new Gazetteer.Place(event.getDetail(), null, null, 0, 0, 0)));
+        return comboBox;
+    }
+
     private TextField createSearchField() {
         final TextField textField = new TextField();
         textField.getElement().setAttribute("aria-label", "search");
@@ -91,8 +123,8 @@ public class DashboardView extends VerticalLayout {
         final FormLayout formLayout = new FormLayout();
         formLayout.setResponsiveSteps(new FormLayout.ResponsiveStep("0", 3));
 
-        final TextField cityField = createSearchField(),
-                stateField = createSearchField(),
+        final ComboBox<Gazetteer.Place> cityField = createCityField();
+        final TextField stateField = createSearchField(),
                 countryField = createSearchField();
 
         cityField.setLabel("City:");
@@ -105,6 +137,13 @@ public class DashboardView extends VerticalLayout {
         countryField.setLabel("Country:");
         countryField.setPlaceholder("Entry the country name");
 
+        cityField.addValueChangeListener(event -> {
+            if (event.isFromClient() && event.getValue() != null && event.getValue().population() > 0) {
+                stateField.setValue(event.getValue().state() == null ? "" : event.getValue().state());
+                countryField.setValue(event.getValue().country());
+            }
+        });
+
         formLayout.add(cityField, stateField, countryField);
 
         final Button primaryButton = new Button("submit");
@@ -115,14 +154,16 @@ public class DashboardView extends VerticalLayout {
                 remove(result);
                 result = null;
             }
-            if (cityField.getValue().isBlank()) {
+            stopWatching();
+            final String city = cityField.getValue() == null ? "" : cityField.getValue().city();
+            if (city.isBlank()) {
                 final Notification error = createNotification("Please enter a city!");
                 error.setDuration(3 * 1000);
                 error.addThemeVariants(NotificationVariant.LUMO_ERROR);
                 error.open();
                 return;
             }
-            result = getWeatherComponents(cityField.getValue(), stateField.getValue(), countryField.getValue());
+            result = getWeatherComponents(city, stateField.getValue(), countryField.getValue());
             add(result);
         });
 
@@ -139,8 +180,8 @@ public class DashboardView extends VerticalLayout {
         return new Item(title, description);
     }
 
-    private Component getLocationInfoComponent(Geolocation location) {
-        final Card card = createCard("Current Location");
+    private void fillLocationInfo(Card card, Geolocation location) {
+        clearCard(card);
 
         if (location == null) {
             card.add(new SecondaryLabel("Could not load location info!"));
@@ -152,11 +193,10 @@ public class DashboardView extends VerticalLayout {
                     createItem("Longitude:", location.longitude() + ""),
                     createItem("Latitude:", location.latitude() + ""));
         }
-        return card;
     }
 
-    private Component getWeatherInfoComponent(Weather weather) {
-        final Card card = createCard("Current Weather");
+    private void fillWeatherInfo(Card card, Weather weather) {
+        clearCard(card);
 
         if (weather == null) {
             card.add(new SecondaryLabel("Could not load weather info!"));
@@ -170,12 +210,10 @@ public class DashboardView extends VerticalLayout {
                 card.add(createItem("Rain last (1h):", weather.rainLastHour() + "mm"));
             }
         }
-
-        return card;
     }
 
-    private Component getMainInfoComponent(MainInfo mainInfo) {
-        final Card card = createCard("Main Info");
+    private void fillMainInfo(Card card, MainInfo mainInfo) {
+        clearCard(card);
 
         if (mainInfo == null) {
             card.add(new SecondaryLabel("Could not load main info!"));
@@ -186,11 +224,10 @@ public class DashboardView extends VerticalLayout {
                     createItem("Ground Level:", mainInfo.grnd_level() + "m"),
                     createItem("Sea Level:", mainInfo.sea_level() + "m"));
         }
-        return card;
     }
 
-    private Component getTemperatureComponent(MainInfo mainInfo) {
-        final Card card = createCard("Temperature Info");
+    private void fillTemperatureInfo(Card card, MainInfo mainInfo) {
+        clearCard(card);
 
         if (mainInfo == null) {
             card.add(new SecondaryLabel("Could not load temperature info!"));
@@ -203,11 +240,10 @@ public class DashboardView extends VerticalLayout {
                     createItem("Temperature Feels Like:", mainInfo.feels_like() + "°C")
             );
         }
-        return card;
     }
 
-    private Component getWindInfoComponent(Wind wind) {
-        final Card card = createCard("Wind Info");
+    private void fillWindInfo(Card card, Wind wind) {
+        clearCard(card);
 
         if (wind == null) {
             card.add(new SecondaryLabel("Could not load wind info!"));
@@ -217,7 +253,28 @@ public class DashboardView extends VerticalLayout {
                     createItem("Degree:", wind.deg() + "°"),
                     createItem("Gust:", wind.gust() + "°m/s"));
         }
-        card.getStyle().set("margin-top", "15px");
+    }
+
+    private void fillWeatherCards(WeatherCards cards, WeatherInfo weatherInfo) {
+        fillWeatherInfo(cards.weather(), weatherInfo == null ? null : weatherInfo.weather());
+        fillWindInfo(cards.wind(), weatherInfo == null ? null : weatherInfo.wind());
+        fillTemperatureInfo(cards.temperature(), weatherInfo == null ? null : weatherInfo.mainInfo());
+        fillMainInfo(cards.mainInfo(), weatherInfo == null ? null : weatherInfo.mainInfo());
+    }
+
+    /**
+     * Removes everything but the title label from the card.
+     */
+    private void clearCard(Card card) {
+        card.getChildren()
+                .skip(1)
+                .collect(Collectors.toList())
+                .forEach(card::remove);
+    }
+
+    private Card createLoadingCard(String title) {
+        final Card card = createCard(title);
+        card.add(new SecondaryLabel("Loading..."));
         return card;
     }
 
@@ -235,9 +292,6 @@ public class DashboardView extends VerticalLayout {
     }
 
     private Component getWeatherComponents(String city, String state, String country) {
-        final Grid<Component> grid = new Grid<>();
-
-
         final FlexLayout components = new FlexLayout();
 
         components.setFlexDirection(FlexLayout.FlexDirection.ROW);
@@ -250,30 +304,64 @@ public class DashboardView extends VerticalLayout {
         test.setFlexDirection(FlexLayout.FlexDirection.COLUMN);
         test.setJustifyContentMode(JustifyContentMode.EVENLY);
 
-
-        geolocationService.get(city, state, country)
-                .flatMap(location -> {
-                    components.add(getLocationInfoComponent(location));
-                    return weatherService.weather(location.longitude() + "", location.latitude() + "");
-                })
-                .ifPresentOrElse(weatherInfo -> {
-                            test.add(getWeatherInfoComponent(weatherInfo.weather()),
-                                    getWindInfoComponent(weatherInfo.wind()));
-                            components.add(test,
-                                    getTemperatureComponent(weatherInfo.mainInfo()),
-                                    getMainInfoComponent(weatherInfo.mainInfo())
-                            );
-                        },
-                        () -> {
-                            final Notification notification = createNotification("Could not find city!");
-                            notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
-                            notification.setDuration(3 * 1000);
-                            notification.open();
+        final Card locationCard = createLoadingCard("Current Location");
+        final WeatherCards cards = new WeatherCards(createLoadingCard("Current Weather"),
+                createLoadingCard("Wind Info"),
+                createLoadingCard("Temperature Info"),
+                createLoadingCard("Main Info"));
+        cards.wind().getStyle().set("margin-top", "15px");
+
+        test.add(cards.weather(), cards.wind());
+        components.add(locationCard, test, cards.temperature(), cards.mainInfo());
+
+        // Both lookups complete on the provider executor, the cards are only
+        // ever touched while holding the session lock through UI.access
+        final UI ui = UI.getCurrent();
+
+        geolocationLookupService.getAsync(city, state, country)
+                .whenComplete((location, throwable) -> access(ui, () -> {
+                    if (throwable != null || location.isEmpty()) {
+                        if (result == components) {
+                            remove(components);
+                            result = null;
                         }
-                );
+                        final Notification notification = createNotification("Could not find city!");
+                        notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+                        notification.setDuration(3 * 1000);
+                        notification.open();
+                        return;
+                    }
+                    fillLocationInfo(locationCard, location.get());
+                    weatherLookupService.weatherAsync(location.get())
+                            .whenComplete((weatherInfo, error) -> access(ui, () ->
+                                    fillWeatherCards(cards, error == null ? weatherInfo.orElse(null) : null)));
+                    if (result == components) {
+                        // later polls update the same cards in place
+                        watchRegistration = weatherPoller.watch(location.get(), weatherInfo ->
+                                access(ui, () -> fillWeatherCards(cards, weatherInfo)));
+                    }
+                }));
 
         return components;
     }
 
+    private void stopWatching() {
+        if (watchRegistration != null) {
+            watchRegistration.remove();
+            watchRegistration = null;
+        }
+    }
+
+    private void access(UI ui, Command command) {
+        try {
+            ui.access(command);
+        } catch (UIDetachedException ignored) {
+            // the user navigated away before the provider answered
+        }
+    }
+
+    private record WeatherCards(Card weather, Card wind, Card temperature, Card mainInfo) {
+    }
+
 
 }
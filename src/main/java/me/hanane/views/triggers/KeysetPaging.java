@@ -0,0 +1,108 @@
+package me.hanane.views.triggers;
+
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import me.hanane.data.service.Keyset;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Fetches the pages of a lazy grid with keyset queries instead of offsets.
+ *
+ * The keyset after every page served is remembered by its offset, so the next
+ * page, or any page seen before, seeks straight to its first row. An offset
+ * within a page of a known one is reached by walking forward from it; a
+ * farther one, such as after dragging the scrollbar, by reading just the
+ * keyset of the row before it, counted from whichever end is closer. The
+ * boundaries are dropped when the sort changes and must be {@link #reset()}
+ * when the rows change.
+ */
+class KeysetPaging<T> implements CallbackDataProvider.FetchCallback<T, Void> {
+
+    interface Source<T> {
+
+        List<T> list(Sort sort, Keyset after, int limit);
+
+        /**
+         * The keyset after the row at the zero-based index, or {@code null}
+         * if there is no such row.
+         */
+        Keyset keysetAt(Sort sort, int index);
+
+        int count();
+    }
+
+    private final Source<T> source;
+    private final TreeMap<Integer, Keyset> boundaries = new TreeMap<>();
+    private Sort sort;
+
+    KeysetPaging(Source<T> source) {
+        this.source = source;
+    }
+
+    @Override
+    public Stream<T> fetch(Query<T, Void> query) {
+        final Sort requested = Keyset.withId(VaadinSpringDataHelpers.toSpringDataSort(query));
+        if (!requested.equals(sort)) {
+            sort = requested;
+            boundaries.clear();
+        }
+        final int offset = query.getOffset();
+        final int limit = query.getLimit();
+        final Map.Entry<Integer, Keyset> start = boundaries.floorEntry(offset);
+        int position = start == null ? 0 : start.getKey();
+        Keyset after = start == null ? null : start.getValue();
+        if (offset - position > limit) {
+            after = jump(offset);
+            if (after == null) {
+                return Stream.empty();
+            }
+            boundaries.put(offset, after);
+            position = offset;
+        }
+        while (position < offset) {
+            final List<T> skipped = source.list(sort, after, Math.min(offset - position, limit));
+            if (skipped.isEmpty()) {
+                return Stream.empty();
+            }
+            position += skipped.size();
+            after = remember(position, skipped);
+        }
+        final List<T> rows = source.list(sort, after, limit);
+        if (!rows.isEmpty()) {
+            remember(offset + rows.size(), rows);
+        }
+        return rows.stream();
+    }
+
+    void reset() {
+        boundaries.clear();
+    }
+
+    private Keyset jump(int offset) {
+        final int count = source.count();
+        if (offset >= count) {
+            return null;
+        }
+        // the row before the offset is count - offset rows from the end
+        return offset <= count / 2
+                ? source.keysetAt(sort, offset - 1)
+                : source.keysetAt(reverse(sort), count - offset);
+    }
+
+    private static Sort reverse(Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> order.with(order.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC))
+                .toList());
+    }
+
+    private Keyset remember(int position, List<T> rows) {
+        final Keyset keyset = Keyset.after(rows.get(rows.size() - 1), sort);
+        boundaries.put(position, keyset);
+        return keyset;
+    }
+}
@@ -0,0 +1,281 @@
+package me.hanane.views.triggers;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.formlayout.FormLayout;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.splitlayout.SplitLayout;
+import com.vaadin.flow.component.textfield.IntegerField;
+import com.vaadin.flow.component.textfield.NumberField;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.timepicker.TimePicker;
+import com.vaadin.flow.data.binder.BeanValidationBinder;
+import com.vaadin.flow.data.binder.Binder;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import java.time.Duration;
+import java.time.Instant;
+import javax.annotation.security.PermitAll;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.data.service.TriggerService;
+import me.hanane.location.GeolocationLookupService;
+import me.hanane.trigger.backtest.BacktestService;
+import me.hanane.views.MainLayout;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Creates, edits and deletes weather triggers through {@link TriggerService},
+ * which registers every saved trigger with the engine. The location is
+ * geocoded on save, so a trigger always carries the coordinates it is polled
+ * at. The form can also be backtested through {@link BacktestService} against
+ * the archived observations of the last 30 days before saving it.
+ */
+@PageTitle("Trigger editor")
+@Route(value = "trigger-editor", layout = MainLayout.class)
+@PermitAll
+public class TriggerEditorView extends Div {
+
+    private static final Duration BACKTEST_PERIOD = Duration.ofDays(30);
+
+    private final TriggerService triggerService;
+    private final GeolocationLookupService geolocationLookupService;
+    private final BacktestService backtestService;
+
+    private final Grid<Trigger> grid = new Grid<>(Trigger.class, false);
+    private final Binder<Trigger> binder = new BeanValidationBinder<>(Trigger.class);
+
+    private final TextField name = new TextField("Name");
+    private final TextField city = new TextField("City");
+    private final TextField state = new TextField("State");
+    private final TextField country = new TextField("Country");
+    private final ComboBox<TriggerField> field = new ComboBox<>("Field");
+    private final ComboBox<TriggerOperator> operator = new ComboBox<>("Operator");
+    private final NumberField threshold = new NumberField("Threshold");
+    private final TextField expression = new TextField("Expression");
+    private final NumberField hysteresis = new NumberField("Hysteresis");
+    private final IntegerField minimumDwell = new IntegerField("Minimum dwell (min)");
+    private final IntegerField cooldown = new IntegerField("Cooldown (min)");
+    private final TimePicker scheduleTime = new TimePicker("Daily at");
+    private final TextField scheduleZone = new TextField("Time zone");
+    private final Checkbox enabled = new Checkbox("Enabled");
+
+    private final Button save = new Button("Save");
+    private final Button backtest = new Button("Backtest");
+    private final Button delete = new Button("Delete");
+    private final Button cancel = new Button("Cancel");
+
+    private Trigger trigger;
+
+    public TriggerEditorView(TriggerService triggerService, GeolocationLookupService geolocationLookupService,
+                             BacktestService backtestService) {
+        this.triggerService = triggerService;
+        this.geolocationLookupService = geolocationLookupService;
+        this.backtestService = backtestService;
+        addClassNames("triggers-view");
+
+        final SplitLayout splitLayout = new SplitLayout();
+        createGridLayout(splitLayout);
+        createEditorLayout(splitLayout);
+        add(splitLayout);
+
+        grid.addColumn(Trigger::getName).setHeader("Name").setSortProperty("name").setAutoWidth(true);
+        grid.addColumn(Trigger::getCity).setHeader("City").setSortProperty("city").setAutoWidth(true);
+        grid.addColumn(Trigger::getCountry).setHeader("Country").setSortProperty("country").setAutoWidth(true);
+        grid.addColumn(TriggerEditorView::condition).setHeader("Condition").setAutoWidth(true);
+        grid.addColumn(value -> value.isEnabled() ? "yes" : "no").setHeader("Enabled").setAutoWidth(true);
+        grid.setItems(query -> triggerService.list(VaadinSpringDataHelpers.toSpringPageRequest(query)).stream());
+        grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
+        grid.asSingleSelect().addValueChangeListener(event -> populateForm(event.getValue()));
+
+        field.setItems(TriggerField.values());
+        field.setItemLabelGenerator(value -> value.getLabel() + " (" + value.getUnit() + ")");
+        operator.setItems(TriggerOperator.values());
+        operator.setItemLabelGenerator(TriggerOperator::getSymbol);
+        expression.setHelperText("For example: temp > 30 && humidity > 60");
+
+        // an empty number field means zero, the properties are primitives
+        binder.forField(threshold).withConverter(value -> value == null ? 0d : value, value -> value)
+                .bind("threshold");
+        binder.forField(hysteresis).withConverter(value -> value == null ? 0d : value, value -> value)
+                .bind("hysteresis");
+        binder.forField(minimumDwell).withConverter(TriggerEditorView::minutes, TriggerEditorView::minutes)
+                .bind("minimumDwell");
+        binder.forField(cooldown).withConverter(TriggerEditorView::minutes, TriggerEditorView::minutes)
+                .bind("cooldown");
+        binder.bindInstanceFields(this);
+
+        save.addClickListener(event -> save());
+        backtest.addClickListener(event -> backtest());
+        delete.addClickListener(event -> {
+            if (trigger != null && trigger.getId() != null) {
+                triggerService.delete(trigger.getId());
+                Notification.show("Trigger deleted");
+            }
+            clearForm();
+        });
+        cancel.addClickListener(event -> clearForm());
+        clearForm();
+    }
+
+    private void save() {
+        final Trigger edited = trigger == null ? new Trigger() : trigger;
+        if (!binder.writeBeanIfValid(edited)) {
+            Notification.show("Failed to save the trigger. Check again that all values are valid");
+            return;
+        }
+        if (edited.getOwner() == null) {
+            final Authentication user = SecurityContextHolder.getContext().getAuthentication();
+            edited.setOwner(user == null ? null : user.getName());
+        }
+        locate(edited, () -> {
+            try {
+                triggerService.update(edited);
+                Notification.show("Trigger saved");
+                clearForm();
+            } catch (IllegalArgumentException exception) {
+                error("Invalid condition: " + exception.getMessage());
+            } catch (ObjectOptimisticLockingFailureException exception) {
+                error("Somebody else has updated the trigger while you were making changes.");
+            }
+        });
+    }
+
+    /**
+     * Replays the values in the form, saved or not, against the archived
+     * observations of their location.
+     */
+    private void backtest() {
+        final Trigger candidate = new Trigger();
+        if (!binder.writeBeanIfValid(candidate)) {
+            Notification.show("Failed to backtest the trigger. Check again that all values are valid");
+            return;
+        }
+        final UI ui = UI.getCurrent();
+        locate(candidate, () -> {
+            final Instant to = Instant.now();
+            backtestService.backtestAsync(candidate, to.minus(BACKTEST_PERIOD), to)
+                    .whenComplete((result, throwable) -> access(ui, () -> {
+                        if (throwable == null) {
+                            Notification.show("Would have fired " + result.firings() + " times in the last "
+                                    + BACKTEST_PERIOD.toDays() + " days");
+                        } else if (throwable.getCause() instanceof IllegalArgumentException exception) {
+                            error("Invalid condition: " + exception.getMessage());
+                        } else {
+                            error("Could not backtest the trigger");
+                        }
+                    }));
+        });
+    }
+
+    /**
+     * Geocodes the trigger's location and sets its coordinates, then runs the
+     * command. The lookup may call the geocoding provider, so the form is only
+     * touched again through UI.access once it answers.
+     */
+    private void locate(Trigger edited, Command command) {
+        final UI ui = UI.getCurrent();
+        geolocationLookupService.getAsync(edited.getCity(), edited.getState(), edited.getCountry())
+                .whenComplete((location, throwable) -> access(ui, () -> {
+                    if (throwable != null || location.isEmpty()) {
+                        error("Could not find " + edited.getCity());
+                        return;
+                    }
+                    edited.setLatitude(location.get().latitude());
+                    edited.setLongitude(location.get().longitude());
+                    command.execute();
+                }));
+    }
+
+    private void createEditorLayout(SplitLayout splitLayout) {
+        final Div editorLayoutDiv = new Div();
+        editorLayoutDiv.setClassName("editor-layout");
+
+        final Div editorDiv = new Div();
+        editorDiv.setClassName("editor");
+        editorLayoutDiv.add(editorDiv);
+
+        final FormLayout formLayout = new FormLayout();
+        formLayout.add(name, city, state, country, field, operator, threshold, expression, hysteresis,
+                minimumDwell, cooldown, scheduleTime, scheduleZone, enabled);
+        editorDiv.add(formLayout);
+
+        final HorizontalLayout buttonLayout = new HorizontalLayout();
+        buttonLayout.setClassName("button-layout");
+        save.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+        delete.addThemeVariants(ButtonVariant.LUMO_ERROR);
+        cancel.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+        buttonLayout.add(save, backtest, delete, cancel);
+        editorLayoutDiv.add(buttonLayout);
+
+        splitLayout.addToSecondary(editorLayoutDiv);
+    }
+
+    private void createGridLayout(SplitLayout splitLayout) {
+        final Div wrapper = new Div();
+        wrapper.setClassName("grid-wrapper");
+        splitLayout.addToPrimary(wrapper);
+        wrapper.add(grid);
+    }
+
+    private void clearForm() {
+        grid.select(null);
+        grid.getDataProvider().refreshAll();
+        populateForm(null);
+    }
+
+    private void populateForm(Trigger value) {
+        trigger = value;
+        binder.readBean(value == null ? new Trigger() : value);
+        delete.setEnabled(value != null);
+    }
+
+    private static Duration minutes(Integer minutes) {
+        return Duration.ofMinutes(minutes == null ? 0 : minutes);
+    }
+
+    private static Integer minutes(Duration duration) {
+        return duration == null ? null : (int) duration.toMinutes();
+    }
+
+    private static String condition(Trigger trigger) {
+        if (trigger.isScheduled()) {
+            return "daily at " + trigger.getScheduleTime();
+        }
+        if (trigger.hasExpression()) {
+            return trigger.getExpression();
+        }
+        return trigger.getField() == null || trigger.getOperator() == null
+                ? ""
+                : trigger.getField().getLabel() + " " + trigger.getOperator().getSymbol() + " "
+                        + trigger.getThreshold();
+    }
+
+    private void error(String message) {
+        final Notification notification = Notification.show(message);
+        notification.setPosition(Notification.Position.MIDDLE);
+        notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+    }
+
+    private void access(UI ui, Command command) {
+        try {
+            ui.access(command);
+        } catch (UIDetachedException ignored) {
+            // the user navigated away before the lookup answered
+        }
+    }
+}
@@ -14,6 +14,7 @@ import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.icon.Icon;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.Notification.Position;
 import com.vaadin.flow.component.notification.NotificationVariant;
@@ -21,18 +22,21 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.splitlayout.SplitLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.binder.ValidationException;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
-import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import me.hanane.data.entity.SamplePerson;
+import me.hanane.data.service.Keyset;
+import me.hanane.data.service.SamplePersonRow;
 import me.hanane.data.service.SamplePersonService;
 import me.hanane.views.MainLayout;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import javax.annotation.security.PermitAll;
@@ -47,7 +51,11 @@ public class TriggersView extends Div implements BeforeEnterObserver {
     private final String SAMPLEPERSON_ID = "samplePersonID";
     private final String SAMPLEPERSON_EDIT_ROUTE_TEMPLATE = "triggers/%s/edit";
 
-    private final Grid<SamplePerson> grid = new Grid<>(SamplePerson.class, false);
+    // the grid shows read-only rows, the form edits a full entity
+    private final Grid<SamplePersonRow> grid = new Grid<>();
+    private final KeysetPaging<SamplePersonRow> paging;
+    private final TextField search = new TextField();
+    private String searchText = "";
 
     CollaborationAvatarGroup avatarGroup;
 
@@ -71,6 +79,22 @@ public class TriggersView extends Div implements BeforeEnterObserver {
 
     public TriggersView(SamplePersonService samplePersonService) {
         this.samplePersonService = samplePersonService;
+        this.paging = new KeysetPaging<>(new KeysetPaging.Source<>() {
+            @Override
+            public List<SamplePersonRow> list(Sort sort, Keyset after, int limit) {
+                return samplePersonService.search(searchText, sort, after, limit);
+            }
+
+            @Override
+            public Keyset keysetAt(Sort sort, int index) {
+                return samplePersonService.searchKeysetAt(searchText, sort, index);
+            }
+
+            @Override
+            public int count() {
+                return samplePersonService.searchCount(searchText);
+            }
+        });
         addClassNames("triggers-view");
 
         // UserInfo is used by Collaboration Engine and is used to share details
@@ -93,31 +117,33 @@ public class TriggersView extends Div implements BeforeEnterObserver {
         add(splitLayout);
 
         // Configure Grid
-        grid.addColumn("firstName").setAutoWidth(true);
-        grid.addColumn("lastName").setAutoWidth(true);
-        grid.addColumn("email").setAutoWidth(true);
-        grid.addColumn("phone").setAutoWidth(true);
-        grid.addColumn("dateOfBirth").setAutoWidth(true);
-        grid.addColumn("occupation").setAutoWidth(true);
-        grid.addColumn("role").setAutoWidth(true);
-        LitRenderer<SamplePerson> importantRenderer = LitRenderer.<SamplePerson>of(
+        grid.addColumn(SamplePersonRow::firstName).setHeader("First name").setSortProperty("firstName")
+                .setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::lastName).setHeader("Last name").setSortProperty("lastName")
+                .setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::email).setHeader("Email").setSortProperty("email").setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::phone).setHeader("Phone").setSortProperty("phone").setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::dateOfBirth).setHeader("Date of birth").setSortProperty("dateOfBirth")
+                .setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::occupation).setHeader("Occupation").setSortProperty("occupation")
+                .setAutoWidth(true);
+        grid.addColumn(SamplePersonRow::role).setHeader("Role").setSortProperty("role").setAutoWidth(true);
+        LitRenderer<SamplePersonRow> importantRenderer = LitRenderer.<SamplePersonRow>of(
                 "<vaadin-icon icon='vaadin:${item.icon}' style='width: var(--lumo-icon-size-s); height: var(--lumo-icon-size-s); color: ${item.color};'></vaadin-icon>")
-                .withProperty("icon", important -> important.isImportant() ? "check" : "minus").withProperty("color",
-                        important -> important.isImportant()
+                .withProperty("icon", important -> important.important() ? "check" : "minus").withProperty("color",
+                        important -> important.important()
                                 ? "var(--lumo-primary-text-color)"
                                 : "var(--lumo-disabled-text-color)");
 
         grid.addColumn(importantRenderer).setHeader("Important").setAutoWidth(true);
 
-        grid.setItems(query -> samplePersonService.list(
-                PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)))
-                .stream());
+        grid.setItems(paging, query -> samplePersonService.searchEstimate(searchText));
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
 
         // when a row is selected or deselected, populate form
         grid.asSingleSelect().addValueChangeListener(event -> {
             if (event.getValue() != null) {
-                UI.getCurrent().navigate(String.format(SAMPLEPERSON_EDIT_ROUTE_TEMPLATE, event.getValue().getId()));
+                UI.getCurrent().navigate(String.format(SAMPLEPERSON_EDIT_ROUTE_TEMPLATE, event.getValue().id()));
             } else {
                 clearForm();
                 UI.getCurrent().navigate(TriggersView.class);
@@ -215,11 +241,22 @@ public class TriggersView extends Div implements BeforeEnterObserver {
         Div wrapper = new Div();
         wrapper.setClassName("grid-wrapper");
         splitLayout.addToPrimary(wrapper);
-        wrapper.add(grid);
+        search.setPlaceholder("Search");
+        search.setPrefixComponent(VaadinIcon.SEARCH.create());
+        search.setClearButtonVisible(true);
+        search.setValueChangeMode(ValueChangeMode.LAZY);
+        search.addClassName("search");
+        search.addValueChangeListener(e -> {
+            searchText = e.getValue();
+            paging.reset();
+            grid.getDataProvider().refreshAll();
+        });
+        wrapper.add(search, grid);
     }
 
     private void refreshGrid() {
         grid.select(null);
+        paging.reset();
         grid.getDataProvider().refreshAll();
     }
 
@@ -0,0 +1,29 @@
+package me.hanane.weather;
+
+import java.util.Locale;
+
+/**
+ * Quantized latitude/longitude cell. Every coordinate inside a cell shares the
+ * same cached weather, fetched once for the centre of the cell.
+ */
+public record GridCell(int latitudeIndex, int longitudeIndex, double size) {
+
+    public static GridCell of(double latitude, double longitude, double size) {
+        return new GridCell((int) Math.floor(latitude / size), (int) Math.floor(longitude / size), size);
+    }
+
+    public double latitude() {
+        return (latitudeIndex + 0.5) * size;
+    }
+
+    public double longitude() {
+        return (longitudeIndex + 0.5) * size;
+    }
+
+    /**
+     * Formats a coordinate of the cell for the provider, never in scientific notation.
+     */
+    public static String format(double coordinate) {
+        return String.format(Locale.ROOT, "%.4f", coordinate);
+    }
+}
@@ -0,0 +1,51 @@
+package me.hanane.weather;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recent weather observations of every polled {@link GridCell}, one
+ * {@link ObservationSeries} per cell, for triggers that look at trends rather
+ * than the latest snapshot, and as the source of the archived observations
+ * that backtests replay.
+ */
+@Component
+public class ObservationHistory {
+
+    private final int capacity;
+    private final Map<GridCell, ObservationSeries> series = new ConcurrentHashMap<>();
+
+    public ObservationHistory(@Value("${htriggers.weather.history.capacity:288}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void record(GridCell cell, WeatherInfo weather, long timestamp) {
+        series.computeIfAbsent(cell, key -> new ObservationSeries(capacity)).append(timestamp, weather);
+    }
+
+    public Optional<ObservationSeries> series(GridCell cell) {
+        return Optional.ofNullable(series.get(cell));
+    }
+
+    /**
+     * The cells with recorded observations.
+     */
+    public Set<GridCell> cells() {
+        return Set.copyOf(series.keySet());
+    }
+
+    /**
+     * Drops the history of a cell that is no longer polled.
+     */
+    public void forget(GridCell cell) {
+        series.remove(cell);
+    }
+
+    public int size() {
+        return series.size();
+    }
+}
@@ -0,0 +1,226 @@
+package me.hanane.weather;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import me.hanane.data.entity.TriggerField;
+
+/**
+ * Fixed-size ring buffer of the weather observations of one location.
+ *
+ * Every row holds the observation time followed by the value of every
+ * {@link TriggerField}, stored in a direct buffer so the history stays off the
+ * garbage collected heap. Appending overwrites the oldest row once the buffer
+ * is full. Windowed aggregates cover the rows observed within the window
+ * before the newest one, and skip values that were missing (NaN). A rate such
+ * as {@link TriggerField#RAIN}, a rolling one-hour total polled more often
+ * than hourly, is added up over time with {@link #accumulation} rather than
+ * {@link #sum}, since consecutive rows overlap. The rows
+ * themselves can be copied out, oldest first, for example to archive them or
+ * to replay them in a backtest.
+ */
+public final class ObservationSeries {
+
+    private static final TriggerField[] FIELDS = TriggerField.values();
+    private static final int ROW_BYTES = Long.BYTES + FIELDS.length * Double.BYTES;
+    private static final double HOUR = Duration.ofHours(1).toMillis();
+
+    private final ByteBuffer rows;
+    private final int capacity;
+    private int next;
+    private int size;
+    private WeatherInfo lastAppended;
+
+    public ObservationSeries(int capacity) {
+        this.capacity = capacity;
+        this.rows = ByteBuffer.allocateDirect(capacity * ROW_BYTES);
+    }
+
+    /**
+     * Appends the observation. The same snapshot handed over twice, for
+     * example from the weather cache, is only recorded once.
+     */
+    public synchronized void append(long timestamp, WeatherInfo weather) {
+        if (weather == lastAppended) {
+            return;
+        }
+        lastAppended = weather;
+        final int offset = next * ROW_BYTES;
+        rows.putLong(offset, timestamp);
+        for (TriggerField field : FIELDS) {
+            rows.putDouble(valueOffset(offset, field), field.extract(weather));
+        }
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies the rows observed after {@code after}, oldest first, with one
+     * column per {@link TriggerField} indexed by ordinal.
+     */
+    public synchronized Rows rowsAfter(long after) {
+        int count = 0;
+        while (count < size && rows.getLong(row(count)) > after) {
+            count++;
+        }
+        final long[] timestamps = new long[count];
+        final double[][] columns = new double[FIELDS.length][count];
+        for (int i = 0; i < count; i++) {
+            final int offset = row(count - 1 - i);
+            timestamps[i] = rows.getLong(offset);
+            for (TriggerField field : FIELDS) {
+                columns[field.ordinal()][i] = rows.getDouble(valueOffset(offset, field));
+            }
+        }
+        return new Rows(timestamps, columns);
+    }
+
+    /**
+     * Time of the newest observation, or {@code -1} when empty.
+     */
+    public synchronized long latestTimestamp() {
+        return size == 0 ? -1 : rows.getLong(row(0));
+    }
+
+    /**
+     * The newest value of the field, or NaN when empty.
+     */
+    public synchronized double latest(TriggerField field) {
+        return size == 0 ? Double.NaN : rows.getDouble(valueOffset(row(0), field));
+    }
+
+    /**
+     * Adds up the values within the window. Only meaningful for a field that
+     * holds an amount per observation; none of the recorded fields do, and
+     * {@link TriggerField#RAIN} in particular would be counted once per poll
+     * within its hour, so use {@link #accumulation} for it.
+     */
+    public synchronized double sum(TriggerField field, Duration window) {
+        double sum = 0;
+        final int rowCount = rowsWithin(window);
+        for (int age = 0; age < rowCount; age++) {
+            final double value = rows.getDouble(valueOffset(row(age), field));
+            if (!Double.isNaN(value)) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Integrates a field holding a rate per hour over the window, for example
+     * the millimetres of rain fallen from {@link TriggerField#RAIN}. Each
+     * value is taken to hold since the row before it, cut off at the start of
+     * the window; the very first row has no such interval and adds nothing.
+     */
+    public synchronized double accumulation(TriggerField field, Duration window) {
+        if (size == 0) {
+            return 0;
+        }
+        final long from = rows.getLong(row(0)) - window.toMillis();
+        double total = 0;
+        final int rowCount = rowsWithin(window);
+        for (int age = 0; age < rowCount && age + 1 < size; age++) {
+            final double value = rows.getDouble(valueOffset(row(age), field));
+            if (!Double.isNaN(value)) {
+                final long start = Math.max(rows.getLong(row(age + 1)), from);
+                total += value * (rows.getLong(row(age)) - start) / HOUR;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lowest value within the window, or NaN without values.
+     */
+    public synchronized double min(TriggerField field, Duration window) {
+        double min = Double.NaN;
+        final int rowCount = rowsWithin(window);
+        for (int age = 0; age < rowCount; age++) {
+            final double value = rows.getDouble(valueOffset(row(age), field));
+            if (!Double.isNaN(value) && (Double.isNaN(min) || value < min)) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Highest value within the window, or NaN without values.
+     */
+    public synchronized double max(TriggerField field, Duration window) {
+        double max = Double.NaN;
+        final int rowCount = rowsWithin(window);
+        for (int age = 0; age < rowCount; age++) {
+            final double value = rows.getDouble(valueOffset(row(age), field));
+            if (!Double.isNaN(value) && (Double.isNaN(max) || value > max)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Newest minus oldest value within the window, or NaN with fewer than two
+     * values.
+     */
+    public synchronized double delta(TriggerField field, Duration window) {
+        double newest = Double.NaN;
+        double oldest = Double.NaN;
+        int values = 0;
+        final int rowCount = rowsWithin(window);
+        for (int age = 0; age < rowCount; age++) {
+            final double value = rows.getDouble(valueOffset(row(age), field));
+            if (!Double.isNaN(value)) {
+                newest = values == 0 ? value : newest;
+                oldest = value;
+                values++;
+            }
+        }
+        return values < 2 ? Double.NaN : newest - oldest;
+    }
+
+    /**
+     * Number of rows, newest first, observed within the window before the
+     * newest one.
+     */
+    private int rowsWithin(Duration window) {
+        if (size == 0) {
+            return 0;
+        }
+        final long from = rows.getLong(row(0)) - window.toMillis();
+        int count = 0;
+        while (count < size && rows.getLong(row(count)) >= from) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Byte offset of the row {@code age} observations before the newest one.
+     */
+    private int row(int age) {
+        return Math.floorMod(next - 1 - age, capacity) * ROW_BYTES;
+    }
+
+    private static int valueOffset(int rowOffset, TriggerField field) {
+        return rowOffset + Long.BYTES + field.ordinal() * Double.BYTES;
+    }
+
+    /**
+     * Observations copied out of a series, see {@link #rowsAfter(long)}.
+     */
+    public record Rows(long[] timestamps, double[][] columns) {
+
+        public int size() {
+            return timestamps.length;
+        }
+    }
+}
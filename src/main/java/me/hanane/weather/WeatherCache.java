@@ -0,0 +1,90 @@
+package me.hanane.weather;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.location.Geolocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Weather results keyed by {@link GridCell}, kept for the provider's update
+ * interval.
+ *
+ * Concurrent misses for the same cell are coalesced: only the first caller
+ * starts the upstream call, everyone else waits on the same future.
+ */
+@Component
+public class WeatherCache {
+
+    private final ExpiringCache<GridCell, WeatherInfo> cache;
+    private final ConcurrentMap<GridCell, CompletableFuture<Optional<WeatherInfo>>> inFlight = new ConcurrentHashMap<>();
+    private final double cellSize;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+
+    public WeatherCache(@Value("${htriggers.weather.cache.max-size:10000}") int maxSize,
+                        @Value("${htriggers.weather.cache.cell-size:0.01}") double cellSize,
+                        @Value("${htriggers.weather.cache.ttl:10m}") Duration ttl,
+                        @Value("${htriggers.weather.cache.negative-ttl:1m}") Duration negativeTtl) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.cellSize = cellSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    public GridCell cell(Geolocation location) {
+        return GridCell.of(location.latitude(), location.longitude(), cellSize);
+    }
+
+    /**
+     * Returns the cached weather of the cell, or loads it if it is missing or expired.
+     */
+    public CompletableFuture<Optional<WeatherInfo>> get(GridCell cell,
+                                                        Function<GridCell, CompletableFuture<Optional<WeatherInfo>>> loader) {
+        final ExpiringCache.Entry<WeatherInfo> cached = cache.get(cell);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(cached.value()));
+        }
+        return load(cell, loader);
+    }
+
+    /**
+     * Loads the weather of the cell regardless of what is cached, joining a
+     * load that is already in flight.
+     */
+    public CompletableFuture<Optional<WeatherInfo>> load(GridCell cell,
+                                                         Function<GridCell, CompletableFuture<Optional<WeatherInfo>>> loader) {
+        final CompletableFuture<Optional<WeatherInfo>> promise = new CompletableFuture<>();
+        final CompletableFuture<Optional<WeatherInfo>> existing = inFlight.putIfAbsent(cell, promise);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Optional<WeatherInfo>> upstream;
+        try {
+            upstream = loader.apply(cell);
+        } catch (RuntimeException exception) {
+            upstream = CompletableFuture.failedFuture(exception);
+        }
+        upstream.whenComplete((weather, throwable) -> {
+            if (throwable == null) {
+                cache.put(cell, weather.orElse(null), weather.isPresent() ? ttl : negativeTtl);
+            }
+            inFlight.remove(cell, promise);
+            if (throwable == null) {
+                promise.complete(weather);
+            } else {
+                promise.completeExceptionally(throwable);
+            }
+        });
+        return promise;
+    }
+
+    public ExpiringCache<GridCell, WeatherInfo> cache() {
+        return cache;
+    }
+}
@@ -0,0 +1,189 @@
+package me.hanane.weather;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Streams a provider "current weather" payload straight into {@link WeatherInfo}.
+ *
+ * No intermediate JSON tree is built: values we display are read into locals
+ * and everything else (coord, sys, base, visibility...) is skipped token by token.
+ */
+public class WeatherInfoTypeAdapter extends TypeAdapter<WeatherInfo> {
+
+    @Override
+    public WeatherInfo read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String name = null, description = null;
+        int cloudiness = 0;
+        double rainLastHour = 0;
+        MainInfo mainInfo = null;
+        Wind wind = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "weather" -> {
+                    in.beginArray();
+                    if (in.hasNext()) {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            switch (in.nextName()) {
+                                case "main" -> name = nextString(in);
+                                case "description" -> description = nextString(in);
+                                default -> in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                    }
+                    while (in.hasNext()) {
+                        in.skipValue();
+                    }
+                    in.endArray();
+                }
+                case "main" -> mainInfo = readMainInfo(in);
+                case "wind" -> wind = readWind(in);
+                case "clouds" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        if (in.nextName().equals("all")) {
+                            cloudiness = nextInt(in);
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                }
+                case "rain" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        if (in.nextName().equals("1h")) {
+                            rainLastHour = nextDouble(in);
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        final Weather weather = name == null && description == null
+                ? null
+                : new Weather(name, description, cloudiness, rainLastHour);
+        return new WeatherInfo(weather, mainInfo, wind);
+    }
+
+    private MainInfo readMainInfo(JsonReader in) throws IOException {
+        double temp = 0, feelsLike = 0, tempMin = 0, tempMax = 0;
+        int pressure = 0, humidity = 0, seaLevel = 0, groundLevel = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "temp" -> temp = nextDouble(in);
+                case "feels_like" -> feelsLike = nextDouble(in);
+                case "temp_min" -> tempMin = nextDouble(in);
+                case "temp_max" -> tempMax = nextDouble(in);
+                case "pressure" -> pressure = nextInt(in);
+                case "humidity" -> humidity = nextInt(in);
+                case "sea_level" -> seaLevel = nextInt(in);
+                case "grnd_level" -> groundLevel = nextInt(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new MainInfo(temp, feelsLike, tempMin, tempMax, pressure, humidity, seaLevel, groundLevel);
+    }
+
+    private Wind readWind(JsonReader in) throws IOException {
+        double speed = 0, gust = 0;
+        int deg = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "speed" -> speed = nextDouble(in);
+                case "deg" -> deg = nextInt(in);
+                case "gust" -> gust = nextDouble(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Wind(speed, deg, gust);
+    }
+
+    private String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+
+    private int nextInt(JsonReader in) throws IOException {
+        return (int) Math.round(nextDouble(in));
+    }
+
+    /**
+     * Writes the same provider shape that {@link #read(JsonReader)} understands.
+     */
+    @Override
+    public void write(JsonWriter out, WeatherInfo value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (value.weather() != null) {
+            final Weather weather = value.weather();
+            out.name("weather").beginArray().beginObject()
+                    .name("main").value(weather.name())
+                    .name("description").value(weather.description())
+                    .endObject().endArray();
+            out.name("clouds").beginObject().name("all").value(weather.cloudiness()).endObject();
+            if (weather.rainLastHour() > 0) {
+                out.name("rain").beginObject().name("1h").value(weather.rainLastHour()).endObject();
+            }
+        }
+        if (value.mainInfo() != null) {
+            final MainInfo mainInfo = value.mainInfo();
+            out.name("main").beginObject()
+                    .name("temp").value(mainInfo.temp())
+                    .name("feels_like").value(mainInfo.feels_like())
+                    .name("temp_min").value(mainInfo.temp_min())
+                    .name("temp_max").value(mainInfo.temp_max())
+                    .name("pressure").value(mainInfo.pressure())
+                    .name("humidity").value(mainInfo.humidity())
+                    .name("sea_level").value(mainInfo.sea_level())
+                    .name("grnd_level").value(mainInfo.grnd_level())
+                    .endObject();
+        }
+        if (value.wind() != null) {
+            final Wind wind = value.wind();
+            out.name("wind").beginObject()
+                    .name("speed").value(wind.speed())
+                    .name("deg").value(wind.deg())
+                    .name("gust").value(wind.gust())
+                    .endObject();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,184 @@
+package me.hanane.weather;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import me.hanane.cache.ExpiringCache;
+import me.hanane.location.Geolocation;
+import me.hanane.location.SpatialIndex;
+import me.hanane.resilience.Resilience;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Front for the {@link WeatherProviderClient} exposing both the blocking
+ * lookup and a {@link CompletableFuture} variant.
+ * Lookups go through the {@link WeatherCache}, so locations in the same grid
+ * cell share one upstream call. Locations are first snapped to a nearby known
+ * location through the {@link SpatialIndex}, so close coordinates on either
+ * side of a cell border still share an entry. Upstream calls are guarded by the weather
+ * {@link Resilience}, and the last known weather of a cell is served when
+ * they fail or the breaker is open.
+ */
+@Service
+public class WeatherLookupService {
+
+    private final WeatherProviderClient client;
+    private final WeatherCache cache;
+    private final SpatialIndex spatialIndex;
+    private final Resilience resilience;
+    private final int bulkConcurrency;
+    private final Duration bulkDeadline;
+
+    public WeatherLookupService(WeatherProviderClient client,
+                                WeatherCache cache,
+                                SpatialIndex spatialIndex,
+                                @Qualifier("weatherResilience") Resilience resilience,
+                                @Value("${htriggers.weather.bulk.concurrency:8}") int bulkConcurrency,
+                                @Value("${htriggers.weather.bulk.deadline:5s}") Duration bulkDeadline) {
+        this.client = client;
+        this.cache = cache;
+        this.spatialIndex = spatialIndex;
+        this.resilience = resilience;
+        this.bulkConcurrency = checkConcurrency(bulkConcurrency);
+        this.bulkDeadline = bulkDeadline;
+    }
+
+    public Optional<WeatherInfo> weather(Geolocation location) {
+        return weatherAsync(location).join();
+    }
+
+    public CompletableFuture<Optional<WeatherInfo>> weatherAsync(Geolocation location) {
+        final GridCell cell = cache.cell(spatialIndex.snap(location));
+        return cache.get(cell, this::fetch)
+                .exceptionallyCompose(throwable -> stale(cell, throwable));
+    }
+
+    public Stream<LocationWeather> weather(Collection<Geolocation> locations) {
+        return weather(locations, bulkConcurrency, bulkDeadline);
+    }
+
+    /**
+     * Looks up the weather of every location, keeping at most {@code concurrency}
+     * upstream calls open at a time. Fresh cache entries are answered right away
+     * and do not count against the limit.
+     *
+     * The returned stream yields results in completion order and blocks while
+     * waiting for the next one. A call that fails or misses its deadline yields
+     * an empty result for its location. A call past its deadline still holds
+     * its slot until it is over, which the weather {@link Resilience} bounds.
+     */
+    public Stream<LocationWeather> weather(Collection<Geolocation> locations, int concurrency, Duration deadline) {
+        checkConcurrency(concurrency);
+        final BlockingQueue<LocationWeather> results = new LinkedBlockingQueue<>();
+        new BulkLookup(locations, deadline, results::add).start(concurrency);
+        return IntStream.range(0, locations.size()).mapToObj(i -> take(results));
+    }
+
+    /**
+     * Like {@link #weather(Collection)}, but without blocking: the future
+     * completes with the results of all locations once the last one is in.
+     */
+    public CompletableFuture<List<LocationWeather>> weatherAsync(Collection<Geolocation> locations) {
+        if (locations.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        final CompletableFuture<List<LocationWeather>> all = new CompletableFuture<>();
+        final List<LocationWeather> results = new ArrayList<>(locations.size());
+        new BulkLookup(locations, bulkDeadline, result -> {
+            synchronized (results) {
+                results.add(result);
+                if (results.size() == locations.size()) {
+                    all.complete(results);
+                }
+            }
+        }).start(bulkConcurrency);
+        return all;
+    }
+
+    private CompletableFuture<Optional<WeatherInfo>> fetch(GridCell cell) {
+        return resilience.call(() -> client.weather(cell));
+    }
+
+    private CompletableFuture<Optional<WeatherInfo>> stale(GridCell cell, Throwable throwable) {
+        final ExpiringCache.Entry<WeatherInfo> stale = cache.cache().getStale(cell);
+        if (stale == null) {
+            return CompletableFuture.failedFuture(throwable);
+        }
+        return CompletableFuture.completedFuture(Optional.ofNullable(stale.value()));
+    }
+
+    private static int checkConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Bulk lookup concurrency must be at least 1, was " + concurrency);
+        }
+        return concurrency;
+    }
+
+    private static LocationWeather take(BlockingQueue<LocationWeather> results) {
+        try {
+            return results.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for weather results", exception);
+        }
+    }
+
+    public record LocationWeather(Geolocation location, Optional<WeatherInfo> weather) {
+    }
+
+    private final class BulkLookup {
+
+        private final Queue<Geolocation> pending;
+        private final Duration deadline;
+        private final Consumer<LocationWeather> results;
+
+        private BulkLookup(Collection<Geolocation> locations, Duration deadline, Consumer<LocationWeather> results) {
+            this.pending = new ConcurrentLinkedQueue<>(locations);
+            this.deadline = deadline;
+            this.results = results;
+        }
+
+        private void start(int concurrency) {
+            for (int i = 0; i < concurrency; i++) {
+                next();
+            }
+        }
+
+        /**
+         * Starts the next pending lookup that actually needs an upstream call,
+         * answering cache hits along the way.
+         */
+        private void next() {
+            Geolocation location;
+            while ((location = pending.poll()) != null) {
+                final CompletableFuture<Optional<WeatherInfo>> future = weatherAsync(location);
+                if (future.isDone()) {
+                    results.accept(new LocationWeather(location, future.exceptionally(throwable -> Optional.empty()).join()));
+                    continue;
+                }
+                final Geolocation current = location;
+                // copy() so the deadline does not fail the shared in-flight future of other callers
+                future.copy()
+                        .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                        .whenComplete((weather, throwable) ->
+                                results.accept(new LocationWeather(current, throwable == null ? weather : Optional.empty())));
+                // the slot frees up when the call is over, not at its deadline
+                future.whenComplete((weather, throwable) -> next());
+                return;
+            }
+        }
+    }
+}
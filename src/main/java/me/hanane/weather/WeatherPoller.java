@@ -0,0 +1,166 @@
+package me.hanane.weather;
+
+import com.vaadin.flow.shared.Registration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import me.hanane.location.Geolocation;
+import me.hanane.location.SpatialIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the weather of every watched location fresh and publishes each update
+ * to the listeners of that location.
+ *
+ * Locations are tracked per {@link GridCell}, so a cell costs one upstream
+ * call per polling interval no matter how many dashboards or triggers watch it.
+ * Watched locations are snapped through the {@link SpatialIndex} first, so
+ * nearby coordinates share a polling slot, and stay in the index while they
+ * are watched. Every polled snapshot is also
+ * recorded in the {@link ObservationHistory} of its cell. Cycle listeners get
+ * all snapshots of a polling cycle at once, after the per-location listeners.
+ */
+@Component
+public class WeatherPoller {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeatherPoller.class);
+
+    private final WeatherLookupService weatherLookupService;
+    private final WeatherCache cache;
+    private final SpatialIndex spatialIndex;
+    private final ObservationHistory history;
+    private final Map<GridCell, Watch> watches = new ConcurrentHashMap<>();
+    private final List<Consumer<Map<GridCell, WeatherInfo>>> cycleListeners = new CopyOnWriteArrayList<>();
+
+    public WeatherPoller(WeatherLookupService weatherLookupService, WeatherCache cache, SpatialIndex spatialIndex,
+                         ObservationHistory history) {
+        this.weatherLookupService = weatherLookupService;
+        this.cache = cache;
+        this.spatialIndex = spatialIndex;
+        this.history = history;
+    }
+
+    /**
+     * Adds the location to the working set until the returned registration is
+     * removed. The listener is called from the polling thread, UI listeners
+     * should hand the update over through {@code UI.access}.
+     */
+    public Registration watch(Geolocation location, Consumer<WeatherInfo> listener) {
+        final Geolocation snapped = spatialIndex.snap(location);
+        final GridCell cell = cache.cell(snapped);
+        spatialIndex.add(snapped);
+        watches.compute(cell, (key, current) -> {
+            final Watch watch = current == null ? new Watch(snapped, new CopyOnWriteArrayList<>()) : current;
+            watch.listeners().add(listener);
+            return watch;
+        });
+        final AtomicBoolean removed = new AtomicBoolean();
+        return () -> {
+            if (removed.getAndSet(true)) {
+                return;
+            }
+            watches.computeIfPresent(cell, (key, current) -> {
+                current.listeners().remove(listener);
+                if (!current.listeners().isEmpty()) {
+                    return current;
+                }
+                history.forget(cell);
+                return null;
+            });
+            spatialIndex.remove(snapped);
+        };
+    }
+
+    /**
+     * Adds the location to the working set without a listener of its own; its
+     * snapshots only reach the cycle listeners.
+     */
+    public Registration watch(Geolocation location) {
+        return watch(location, weather -> { });
+    }
+
+    /**
+     * Adds a listener for all snapshots of every polling cycle, keyed by
+     * polling slot.
+     */
+    public Registration addCycleListener(Consumer<Map<GridCell, WeatherInfo>> listener) {
+        cycleListeners.add(listener);
+        return () -> cycleListeners.remove(listener);
+    }
+
+    /**
+     * Returns the polling slot the location is watched under.
+     */
+    public GridCell cellOf(Geolocation location) {
+        return cache.cell(spatialIndex.snap(location));
+    }
+
+    public int size() {
+        return watches.size();
+    }
+
+    /**
+     * Returns the watched locations within {@code radiusKm}, closest first,
+     * one per polling slot.
+     */
+    public List<Geolocation> watchedWithin(double latitude, double longitude, double radiusKm) {
+        final Map<GridCell, Geolocation> watched = new LinkedHashMap<>();
+        for (Geolocation location : spatialIndex.within(latitude, longitude, radiusKm)) {
+            final GridCell cell = cache.cell(location);
+            final Watch watch = watches.get(cell);
+            if (watch != null) {
+                watched.putIfAbsent(cell, watch.location());
+            }
+        }
+        return new ArrayList<>(watched.values());
+    }
+
+    @Scheduled(fixedDelayString = "${htriggers.weather.poller.interval:PT10M}",
+            initialDelayString = "${htriggers.weather.poller.interval:PT10M}")
+    public void poll() {
+        final Map<Geolocation, Watch> working = watches.values().stream()
+                .collect(Collectors.toMap(Watch::location, watch -> watch, (first, second) -> first));
+        if (working.isEmpty()) {
+            return;
+        }
+        final Map<GridCell, WeatherInfo> cycle = new HashMap<>();
+        weatherLookupService.weather(working.keySet())
+                .forEach(result -> result.weather().ifPresent(weather -> {
+                    final GridCell cell = cache.cell(result.location());
+                    history.record(cell, weather, System.currentTimeMillis());
+                    cycle.put(cell, weather);
+                    publish(working.get(result.location()).listeners(), weather);
+                }));
+        for (Consumer<Map<GridCell, WeatherInfo>> listener : cycleListeners) {
+            try {
+                listener.accept(Collections.unmodifiableMap(cycle));
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Weather cycle listener failed", exception);
+            }
+        }
+    }
+
+    private void publish(List<Consumer<WeatherInfo>> listeners, WeatherInfo weather) {
+        for (Consumer<WeatherInfo> listener : listeners) {
+            try {
+                listener.accept(weather);
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Weather listener failed", exception);
+            }
+        }
+    }
+
+    private record Watch(Geolocation location, List<Consumer<WeatherInfo>> listeners) {
+    }
+}
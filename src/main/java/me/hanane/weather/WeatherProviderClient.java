@@ -0,0 +1,89 @@
+package me.hanane.weather;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.PreDestroy;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Dsl;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Non-blocking client for the provider's current weather endpoint
+ * ({@code /data/2.5/weather?lat=..&lon=..}).
+ *
+ * Responses are decoded straight from the body stream with the provider
+ * {@link Gson}, so the {@link WeatherInfoTypeAdapter} reads them without
+ * building a JSON tree or a body string. A location the provider does not know
+ * yields an empty result, any other error status fails the call. Requests
+ * are aborted by the client once they take longer than the request timeout.
+ */
+@Component
+public class WeatherProviderClient {
+
+    private final AsyncHttpClient client;
+    private final Gson gson;
+    private final String url;
+    private final String apiKey;
+    private final String units;
+
+    public WeatherProviderClient(Gson providerGson,
+                                 @Value("${htriggers.weather.provider.url:https://api.openweathermap.org}") String url,
+                                 @Value("${htriggers.weather.provider.api-key:}") String apiKey,
+                                 @Value("${htriggers.weather.provider.units:metric}") String units,
+                                 @Value("${htriggers.weather.provider.request-timeout:3s}") Duration requestTimeout) {
+        this.client = Dsl.asyncHttpClient(Dsl.config().setRequestTimeout((int) requestTimeout.toMillis()));
+        this.gson = providerGson;
+        this.url = url + "/data/2.5/weather";
+        this.apiKey = apiKey;
+        this.units = units;
+    }
+
+    /**
+     * Looks up the weather at the centre of the cell. Cancelling the returned
+     * future aborts the request.
+     */
+    public CompletableFuture<Optional<WeatherInfo>> weather(GridCell cell) {
+        final ListenableFuture<Response> request = client.prepareGet(url)
+                .addQueryParam("lat", GridCell.format(cell.latitude()))
+                .addQueryParam("lon", GridCell.format(cell.longitude()))
+                .addQueryParam("units", units)
+                .addQueryParam("appid", apiKey)
+                .execute();
+        final CompletableFuture<Optional<WeatherInfo>> weather = request.toCompletableFuture().thenApply(this::decode);
+        weather.whenComplete((value, throwable) -> {
+            if (weather.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        return weather;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private Optional<WeatherInfo> decode(Response response) {
+        if (response.getStatusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.getStatusCode() != 200) {
+            throw new IllegalStateException("Weather provider answered " + response.getStatusCode());
+        }
+        try (Reader reader = new InputStreamReader(response.getResponseBodyAsStream(), StandardCharsets.UTF_8)) {
+            return Optional.ofNullable(gson.fromJson(reader, WeatherInfo.class));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
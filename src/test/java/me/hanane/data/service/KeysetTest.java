@@ -0,0 +1,38 @@
+package me.hanane.data.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import me.hanane.data.entity.SamplePerson;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class KeysetTest {
+
+    private static final Sort SORT = Keyset.withId(
+            Sort.by("lastName").and(Sort.by(Sort.Direction.DESC, "dateOfBirth")));
+
+    @Test
+    void readsRecordAccessors() {
+        final SamplePersonRow row = new SamplePersonRow(7L, "Ann", null, "ann@example.com", null,
+                LocalDate.of(1990, 1, 2), null, null, false);
+
+        assertEquals(new Keyset(Arrays.asList(null, LocalDate.of(1990, 1, 2), 7L)), Keyset.after(row, SORT));
+    }
+
+    @Test
+    void readsBeanGetters() {
+        final SamplePerson person = new SamplePerson();
+        person.setId(7L);
+        person.setLastName("Smith");
+
+        assertEquals(new Keyset(Arrays.asList("Smith", null, 7L)), Keyset.after(person, SORT));
+    }
+
+    @Test
+    void appendsTheIdOnce() {
+        assertEquals(Sort.by("lastName", "id"), Keyset.withId(Sort.by("lastName")));
+        assertEquals(Sort.by("id"), Keyset.withId(Sort.by("id")));
+    }
+}
@@ -0,0 +1,39 @@
+package me.hanane.data.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import me.hanane.data.entity.SamplePerson;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class SamplePersonCacheTest {
+
+    @Test
+    void publishesHitsMissesEvictionsAndSize() {
+        final SamplePersonCache cache = new SamplePersonCache(1, Duration.ofMinutes(1), 10, Duration.ofMinutes(1));
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(1L, () -> Optional.of(person(1L)));
+        cache.get(1L, () -> Optional.of(person(1L)));
+        cache.get(2L, () -> Optional.of(person(2L)));
+        cache.page(Sort.by("id"), null, 50, List::of);
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "people", "result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets").tags("cache", "people", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions").tags("cache", "people").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("cache", "people").gauge().value());
+        assertEquals(1, registry.get("cache.size").tags("cache", "person.pages").gauge().value());
+    }
+
+    private static SamplePerson person(Long id) {
+        final SamplePerson person = new SamplePerson();
+        person.setId(id);
+        return person;
+    }
+}
@@ -0,0 +1,67 @@
+package me.hanane.data.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+class SamplePersonCountServiceTest {
+
+    private SamplePersonRepository repository;
+    private SamplePersonCountService counts;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SamplePersonRepository.class);
+        when(repository.count(any(Specification.class))).thenReturn(7L, 8L, 9L);
+        counts = new SamplePersonCountService(repository, 16, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void cachesCountsByEqualFilters() {
+        assertEquals(7, counts.count(new SamplePersonFilters.WithIds(Set.of(1L, 2L))));
+        assertEquals(7, counts.count(new SamplePersonFilters.WithIds(Set.of(2L, 1L))));
+        assertEquals(8, counts.count(SamplePersonFilters.matching("Ann  Smith")));
+        assertEquals(8, counts.count(new SamplePersonFilters.Matching(List.of("ann", "smith"))));
+        verify(repository, times(2)).count(any(Specification.class));
+    }
+
+    @Test
+    void countsDifferentFiltersApart() {
+        assertEquals(7, counts.count(new SamplePersonFilters.WithIds(Set.of(1L, 2L))));
+        assertEquals(8, counts.count(new SamplePersonFilters.WithIds(Set.of(1L, 3L))));
+        assertEquals(9, counts.count(SamplePersonFilters.matching("ann")));
+    }
+
+    @Test
+    void dropsFilteredCountsOnEveryWrite() {
+        final SamplePersonFilters.Matching filter = SamplePersonFilters.matching("ann");
+        assertEquals(7, counts.count(filter));
+
+        counts.changed();
+        assertEquals(8, counts.count(filter));
+
+        counts.added();
+        assertEquals(9, counts.estimate(filter));
+    }
+
+    @Test
+    void estimatesFromAnExpiredCount() throws InterruptedException {
+        counts = new SamplePersonCountService(repository, 16, Duration.ofMillis(1));
+        final SamplePersonFilters.Matching filter = SamplePersonFilters.matching("ann");
+        assertEquals(7, counts.count(filter));
+        Thread.sleep(5);
+
+        assertEquals(7, counts.estimate(filter));
+        assertEquals(8, counts.count(filter));
+    }
+}
@@ -0,0 +1,167 @@
+package me.hanane.data.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import me.hanane.data.entity.SamplePerson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class SamplePersonSearchIndexTest {
+
+    private SamplePersonRepository repository;
+    private SamplePersonSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SamplePersonRepository.class);
+        index = new SamplePersonSearchIndex(repository);
+    }
+
+    @Test
+    void matchesTermsAnywhereInAWord() {
+        index.put(person(1L, "Anna", "Smith", "anna.smith@example.com"));
+        index.put(person(2L, "Mia", "Jones", "mia@example.org"));
+
+        assertEquals(Set.of(1L, 2L), index.search("a"));
+        assertEquals(Set.of(1L, 2L), index.search("mi"));
+        assertEquals(Set.of(1L), index.search("ith"));
+        assertEquals(Set.of(1L), index.search("MITH"));
+        assertEquals(Set.of(2L), index.search("org"));
+        assertEquals(Set.of(), index.search("xyz"));
+        assertNull(index.search(" - "));
+    }
+
+    @Test
+    void matchesPeopleWithEveryTerm() {
+        index.put(person(1L, "Anna", "Smith", null));
+        index.put(person(2L, "Anna", "Jones", null));
+
+        assertEquals(Set.of(2L), index.search("ann one"));
+        assertEquals(Set.of(), index.search("smith jones"));
+    }
+
+    @Test
+    void forgetsRemovedAndReplacedWords() {
+        index.put(person(1L, "Aaaa", "Smith", null));
+        index.put(person(1L, "Bob", "Smith", null));
+        index.put(person(2L, "Eve", null, null));
+        index.remove(2L);
+
+        assertEquals(Set.of(), index.search("aa"));
+        assertEquals(Set.of(1L), index.search("bo"));
+        assertEquals(Set.of(), index.search("e"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void agreesWithSubstringMatchingOfTheFields() {
+        final Random random = new Random(5);
+        final List<SamplePerson> people = new ArrayList<>();
+        for (long id = 0; id < 300; id++) {
+            final SamplePerson person = person(id, name(random), name(random), name(random) + "@" + name(random));
+            people.add(person);
+            index.put(person);
+        }
+        for (int i = 0; i < 500; i++) {
+            final String text = part(random) + (random.nextBoolean() ? " " + part(random) : "");
+            assertEquals(like(people, text), index.search(text), text);
+        }
+    }
+
+    @Test
+    void loadsEveryPersonInBatches() {
+        final List<SamplePersonRow> rows = new ArrayList<>();
+        for (long id = 0; id < 2500; id++) {
+            rows.add(row(id, "name" + id));
+        }
+        when(repository.findRowsAfter(isNull(), any(Sort.class), any(), anyInt())).thenAnswer(invocation -> {
+            final Keyset after = invocation.getArgument(2);
+            final int from = after == null ? 0 : ((Long) after.values().get(0)).intValue() + 1;
+            return rows.subList(from, Math.min(from + (int) invocation.getArgument(3), rows.size()));
+        });
+
+        index.load();
+
+        assertEquals(2500, index.size());
+        assertEquals(Set.of(1234L), index.search("name1234"));
+    }
+
+    @Test
+    void keepsWritesMadeWhileLoading() {
+        index.put(person(1L, "Old", null, null));
+        when(repository.findRowsAfter(isNull(), any(Sort.class), isNull(), anyInt())).thenAnswer(invocation -> {
+            // written after the rows were read
+            index.put(person(1L, "Renamed", null, null));
+            index.put(person(3L, "Added", null, null));
+            index.remove(2L);
+            return List.of(row(1L, "Old"), row(2L, "Deleted"));
+        });
+
+        index.load();
+
+        assertEquals(Set.of(), index.search("old"));
+        assertEquals(Set.of(1L), index.search("renamed"));
+        assertEquals(Set.of(3L), index.search("added"));
+        assertEquals(Set.of(), index.search("deleted"));
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * The people with every term in one of their fields, like the database
+     * search with {@code LIKE '%term%'}.
+     */
+    private static Set<Long> like(List<SamplePerson> people, String text) {
+        final List<String> terms = SamplePersonFilters.matching(text).terms();
+        return people.stream()
+                .filter(person -> terms.stream().allMatch(term -> Stream.of(person.getFirstName(),
+                                person.getLastName(), person.getEmail(), person.getOccupation(), person.getRole())
+                        .anyMatch(field -> field != null && field.toLowerCase(Locale.ROOT).contains(term))))
+                .map(SamplePerson::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * A random part of a random name, from one character to a whole name.
+     */
+    private static String part(Random random) {
+        final String name = name(random);
+        final int from = random.nextInt(name.length());
+        return name.substring(from, from + 1 + random.nextInt(name.length() - from));
+    }
+
+    private static String name(Random random) {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 3 + random.nextInt(5); i++) {
+            name.append((char) ('a' + random.nextInt(6)));
+        }
+        return name.toString();
+    }
+
+    private static SamplePerson person(Long id, String firstName, String lastName, String email) {
+        final SamplePerson person = new SamplePerson();
+        person.setId(id);
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        person.setEmail(email);
+        return person;
+    }
+
+    private static SamplePersonRow row(Long id, String firstName) {
+        return new SamplePersonRow(id, firstName, null, null, null, null, null, null, false);
+    }
+}
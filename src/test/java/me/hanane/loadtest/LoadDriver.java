@@ -0,0 +1,135 @@
+package me.hanane.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import me.hanane.Application;
+import me.hanane.location.GeolocationLookupService;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherLookupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives the dashboard lookup path (geocoding then weather) at a fixed request
+ * rate and reports latency percentiles, throughput and allocation rate.
+ *
+ * {@link #main(String[])} starts the application with the {@code loadtest}
+ * profile against the {@link StubProviderServer}, runs the driver and closes
+ * the application once the report is logged. Requests are issued open loop
+ * and latency is measured from the time a request was due, so a stalled
+ * system cannot hide its own queueing delay.
+ */
+@Component
+@Profile("loadtest")
+public class LoadDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+
+    private final GeolocationLookupService geolocationLookupService;
+    private final WeatherLookupService weatherLookupService;
+    private final int requestsPerSecond;
+    private final Duration duration;
+    private final int cities;
+
+    public LoadDriver(GeolocationLookupService geolocationLookupService,
+                      WeatherLookupService weatherLookupService,
+                      @Value("${htriggers.loadtest.rps:200}") int requestsPerSecond,
+                      @Value("${htriggers.loadtest.duration:60s}") Duration duration,
+                      @Value("${htriggers.loadtest.cities:1000}") int cities) {
+        this.geolocationLookupService = geolocationLookupService;
+        this.weatherLookupService = weatherLookupService;
+        this.requestsPerSecond = requestsPerSecond;
+        this.duration = duration;
+        this.cities = cities;
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("loadtest")
+                .run(args)) {
+            context.getBean(LoadDriver.class).run();
+        }
+    }
+
+    public void run() {
+        final int total = (int) (duration.toSeconds() * requestsPerSecond);
+        final long interval = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        final AtomicLongArray latencies = new AtomicLongArray(total);
+        final AtomicInteger failures = new AtomicInteger();
+        final CompletableFuture<?>[] requests = new CompletableFuture<?>[total];
+
+        LOGGER.info("Driving {} requests at {} rps over {} cities", total, requestsPerSecond, cities);
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < total; i++) {
+            final long due = start + i * interval;
+            final long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final int index = i;
+            final String city = "city-" + ThreadLocalRandom.current().nextInt(cities);
+            requests[i] = geolocationLookupService.getAsync(city, "", "")
+                    .thenCompose(location -> location
+                            .map(weatherLookupService::weatherAsync)
+                            .orElseGet(() -> CompletableFuture.completedFuture(Optional.<WeatherInfo>empty())))
+                    .whenComplete((weather, throwable) -> {
+                        latencies.set(index, System.nanoTime() - due);
+                        if (throwable != null || weather.isEmpty()) {
+                            failures.incrementAndGet();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(requests).exceptionally(throwable -> null).join();
+
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = allocatedBytes() - allocatedBefore;
+        final long[] sorted = new long[total];
+        for (int i = 0; i < total; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        final double seconds = elapsed / 1e9;
+
+        LOGGER.info("Completed {} requests ({} failed) in {} s", total, failures.get(), String.format("%.1f", seconds));
+        LOGGER.info("Throughput: {} req/s", String.format("%.1f", total / seconds));
+        LOGGER.info("Latency p50: {} ms, p99: {} ms, max: {} ms", millis(sorted, 0.50), millis(sorted, 0.99),
+                millis(sorted, 1.0));
+        LOGGER.info("Allocation rate: {} MB/s", String.format("%.1f", allocated / seconds / (1024 * 1024)));
+    }
+
+    private String millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        final int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.2f", sorted[Math.max(0, index)] / 1e6);
+    }
+
+    /**
+     * Bytes allocated so far by all live threads. Threads that died during the
+     * run are not counted, which is fine for the long-lived pools under test.
+     */
+    private long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)) {
+            return 0;
+        }
+        return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+                .filter(bytes -> bytes > 0)
+                .sum();
+    }
+}
@@ -0,0 +1,166 @@
+package me.hanane.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for the geocoding and weather provider, so the dashboard path
+ * can be load tested offline. Point the provider clients at
+ * {@code http://localhost:<htriggers.stub.port>} to use it.
+ *
+ * Serves {@code /geo/1.0/direct?q=city,state,country} and
+ * {@code /data/2.5/weather?lat=..&lon=..} with a log-normal latency around the
+ * configured median, a configurable error rate and padded payloads.
+ */
+@Component
+@Profile("loadtest")
+public class StubProviderServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubProviderServer.class);
+
+    private final int port;
+    private final Duration medianLatency;
+    private final double latencySigma;
+    private final double errorRate;
+    private final int payloadSize;
+    private final Gson gson;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubProviderServer(@Value("${htriggers.stub.port:8089}") int port,
+                              @Value("${htriggers.stub.latency.median:50ms}") Duration medianLatency,
+                              @Value("${htriggers.stub.latency.sigma:0.5}") double latencySigma,
+                              @Value("${htriggers.stub.error-rate:0.01}") double errorRate,
+                              @Value("${htriggers.stub.payload-size:512}") int payloadSize,
+                              Gson providerGson) {
+        this.port = port;
+        this.medianLatency = medianLatency;
+        this.latencySigma = latencySigma;
+        this.errorRate = errorRate;
+        this.payloadSize = payloadSize;
+        this.gson = providerGson;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/geo/1.0/direct", exchange -> respond(exchange, this::geocode));
+        server.createContext("/data/2.5/weather", exchange -> respond(exchange, this::weather));
+        server.start();
+        LOGGER.info("Stub provider listening on http://localhost:{}", port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, ResponseBody body) throws IOException {
+        try (exchange) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long latency = (long) (medianLatency.toMillis() * Math.exp(latencySigma * random.nextGaussian()));
+            Thread.sleep(latency);
+
+            if (random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            final byte[] bytes = body.create(query(exchange)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String geocode(Map<String, String> query) {
+        final String[] parts = query.getOrDefault("q", "").split(",", -1);
+        final String city = parts[0].trim();
+        final JsonArray result = new JsonArray();
+        if (city.isEmpty()) {
+            return result.toString();
+        }
+        // coordinates are derived from the name so every run geocodes a city the same way
+        final int hash = city.toLowerCase().hashCode();
+        final JsonObject location = new JsonObject();
+        location.addProperty("name", city);
+        location.addProperty("lat", (hash % 9000) / 100.0);
+        location.addProperty("lon", ((hash / 9000) % 18000) / 100.0);
+        location.addProperty("state", parts.length > 1 ? parts[1].trim() : "");
+        location.addProperty("country", parts.length > 2 ? parts[2].trim() : "");
+        location.addProperty("padding", padding(location.toString().length()));
+        result.add(location);
+        return result.toString();
+    }
+
+    private String weather(Map<String, String> query) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final WeatherInfo weather = new WeatherInfo(
+                new Weather("Clouds", "scattered clouds", random.nextInt(101), random.nextDouble(0, 5)),
+                new MainInfo(random.nextDouble(-10, 40), random.nextDouble(-10, 40), random.nextDouble(-10, 20),
+                        random.nextDouble(20, 40), random.nextInt(980, 1040), random.nextInt(0, 101),
+                        random.nextInt(980, 1040), random.nextInt(900, 1040)),
+                new Wind(random.nextDouble(0, 30), random.nextInt(360), random.nextDouble(0, 40)));
+        final JsonObject json = gson.toJsonTree(weather).getAsJsonObject();
+        json.addProperty("name", query.getOrDefault("lat", "") + "," + query.getOrDefault("lon", ""));
+        json.addProperty("padding", padding(json.toString().length()));
+        return json.toString();
+    }
+
+    private String padding(int currentSize) {
+        return "x".repeat(Math.max(0, payloadSize - currentSize));
+    }
+
+    private Map<String, String> query(HttpExchange exchange) {
+        final Map<String, String> query = new HashMap<>();
+        final String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            final int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    @FunctionalInterface
+    private interface ResponseBody {
+        String create(Map<String, String> query);
+    }
+}
@@ -0,0 +1,64 @@
+package me.hanane.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+class GazetteerTest {
+
+    private final Gazetteer gazetteer = new Gazetteer(new ByteArrayResource(String.join("\n",
+            "# name\tstate\tcountry\tlatitude\tlongitude\tpopulation",
+            "Paris\t\tFR\t48.8566\t2.3522\t2148000",
+            "Paris\tTexas\tUS\t33.6609\t-95.5555\t24700",
+            "Parma\t\tIT\t44.8015\t10.3279\t198000",
+            "Pau\t\tFR\t43.2951\t-0.3708\t77000",
+            "S\u00e3o Paulo\t\tBR\t-23.5505\t-46.6333\t12330000",
+            "Fes\t\tMA\t34.0181\t-5.0078\t1112072",
+            "Pa\t\tXX\t0\t0\t10",
+            "Q\t\tXX\t0\t0\t5").getBytes(StandardCharsets.UTF_8)));
+
+    @Test
+    void suggestsAcrossNamesLargestFirst() {
+        assertEquals(List.of("Paris", "Parma", "Pau", "Paris", "Pa"),
+                gazetteer.suggest("pa", 10).stream().map(Gazetteer.Place::city).toList());
+        assertEquals(List.of("Paris", "Parma", "Paris"),
+                gazetteer.suggest("Par", 10).stream().map(Gazetteer.Place::city).toList());
+    }
+
+    @Test
+    void suggestsUpToTheLimit() {
+        assertEquals(List.of("Paris", "Parma"),
+                gazetteer.suggest("P", 2).stream().map(Gazetteer.Place::city).toList());
+        assertTrue(gazetteer.suggest("p", 0).isEmpty());
+        assertTrue(gazetteer.suggest("  ", 5).isEmpty());
+        assertTrue(gazetteer.suggest("pz", 5).isEmpty());
+    }
+
+    @Test
+    void ignoresDiacriticsCaseAndSpacing() {
+        assertEquals("S\u00e3o Paulo", gazetteer.suggest("SAO  pa", 1).get(0).city());
+        assertEquals(-23.5505, gazetteer.resolve(" sao paulo ", null, "br").orElseThrow().latitude());
+        assertEquals("S\u00e3o Paulo", gazetteer.resolve("S\u00e3o Paulo", "", "").orElseThrow().city());
+    }
+
+    @Test
+    void resolvesTheLargestPlaceMatchingStateAndCountry() {
+        assertEquals("FR", gazetteer.resolve("Paris", null, null).orElseThrow().country());
+        assertEquals("US", gazetteer.resolve("Paris", "texas", null).orElseThrow().country());
+        assertEquals("US", gazetteer.resolve("paris", null, "us").orElseThrow().country());
+        assertTrue(gazetteer.resolve("Paris", null, "IT").isEmpty());
+        assertTrue(gazetteer.resolve("Lyon", null, null).isEmpty());
+    }
+
+    @Test
+    void resolvesCountriesGivenByName() {
+        assertEquals("MA", gazetteer.resolve("Fes", null, "Morocco").orElseThrow().country());
+        assertEquals("US", gazetteer.resolve("Paris", null, "United States").orElseThrow().country());
+        assertEquals("BR", gazetteer.resolve("Sao Paulo", null, "brazil").orElseThrow().country());
+        assertTrue(gazetteer.resolve("Paris", null, "Italy").isEmpty());
+    }
+}
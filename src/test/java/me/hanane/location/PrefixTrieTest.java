@@ -0,0 +1,67 @@
+package me.hanane.location;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    private final PrefixTrie trie = new PrefixTrie(new String[]{"abd", "b", "ab", "abc", "a", "ba", "ab", "c"});
+
+    @Test
+    void sortsAndDeduplicatesTheKeys() {
+        assertEquals(7, trie.keyCount());
+        assertEquals("a", trie.key(0));
+        assertEquals("c", trie.key(6));
+        assertEquals(2, trie.indexOf("abc"));
+        assertEquals(-1, trie.indexOf("bc"));
+        assertEquals(-1, trie.indexOf("abcd"));
+    }
+
+    @Test
+    void coversTheKeysStartingWithThePrefix() {
+        assertArrayEquals(new int[]{0, 7}, trie.prefixRange(""));
+        assertArrayEquals(new int[]{0, 4}, trie.prefixRange("a"));
+        assertArrayEquals(new int[]{1, 4}, trie.prefixRange("ab"));
+        assertArrayEquals(new int[]{3, 4}, trie.prefixRange("abd"));
+        assertArrayEquals(new int[]{4, 6}, trie.prefixRange("b"));
+        assertArrayEquals(new int[]{6, 7}, trie.prefixRange("c"));
+    }
+
+    @Test
+    void coversNothingForAnUnknownPrefix() {
+        final int[] range = trie.prefixRange("abz");
+        assertEquals(range[0], range[1]);
+        assertEquals(trie.prefixRange("d")[0], trie.prefixRange("d")[1]);
+    }
+
+    @Test
+    void agreesWithScanningTheSortedKeys() {
+        final Random random = new Random(9);
+        final TreeSet<String> keys = new TreeSet<>();
+        while (keys.size() < 500) {
+            keys.add(word(random));
+        }
+        final PrefixTrie large = new PrefixTrie(keys.toArray(String[]::new));
+        final List<String> sorted = new ArrayList<>(keys);
+        for (int i = 0; i < 1000; i++) {
+            final String prefix = word(random).substring(0, 1 + random.nextInt(3));
+            final List<String> expected = sorted.stream().filter(key -> key.startsWith(prefix)).toList();
+            final int[] range = large.prefixRange(prefix);
+            assertEquals(expected, sorted.subList(range[0], range[1]), prefix);
+        }
+    }
+
+    private static String word(Random random) {
+        final StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 3 + random.nextInt(4); i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package me.hanane.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class SpatialIndexTest {
+
+    private final SpatialIndex index = new SpatialIndex(0.5, 2);
+
+    @Test
+    void snappingDoesNotIndexTheLocation() {
+        final Geolocation location = location("a", 48.85, 2.35);
+
+        assertSame(location, index.snap(location));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void snapsToAnIndexedLocationNearby() {
+        final Geolocation paris = location("paris", 48.8566, 2.3522);
+        index.add(paris);
+
+        assertSame(paris, index.snap(location("near", 48.86, 2.36)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void locationLeavesTheIndexWithItsLastReference() {
+        final Geolocation paris = location("paris", 48.8566, 2.3522);
+        index.add(paris);
+        index.add(paris);
+
+        index.remove(paris);
+        assertEquals(1, index.size());
+        index.remove(paris);
+        assertEquals(0, index.size());
+        index.remove(paris);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void matchesABruteForceSearchThroughAddsAndRemoves() {
+        final Random random = new Random(42);
+        final Map<Geolocation, Integer> expected = new HashMap<>();
+        final List<Geolocation> known = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            known.add(location("p" + i, 45 + random.nextDouble() * 2, 5 + random.nextDouble() * 2));
+        }
+        for (int step = 0; step < 5000; step++) {
+            final Geolocation location = known.get(random.nextInt(known.size()));
+            if (random.nextInt(3) > 0) {
+                index.add(location);
+                expected.merge(location, 1, Integer::sum);
+            } else {
+                index.remove(location);
+                expected.computeIfPresent(location, (key, count) -> count == 1 ? null : count - 1);
+            }
+            if (step % 100 == 0) {
+                final double latitude = 45 + random.nextDouble() * 2;
+                final double longitude = 5 + random.nextDouble() * 2;
+                assertEquals(within(expected.keySet(), latitude, longitude, 20),
+                        index.within(latitude, longitude, 20));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+    }
+
+    private static List<Geolocation> within(Iterable<Geolocation> locations, double latitude, double longitude,
+                                            double radiusKm) {
+        final List<Geolocation> result = new ArrayList<>();
+        locations.forEach(result::add);
+        return result.stream()
+                .filter(location -> distance(location, latitude, longitude) <= radiusKm)
+                .sorted(Comparator.comparingDouble(location -> distance(location, latitude, longitude)))
+                .collect(Collectors.toList());
+    }
+
+    private static double distance(Geolocation location, double latitude, double longitude) {
+        return SpatialIndex.distanceKm(latitude, longitude, location.latitude(), location.longitude());
+    }
+
+    private static Geolocation location(String city, double latitude, double longitude) {
+        return new Geolocation(city, "", "", longitude, latitude);
+    }
+}
@@ -0,0 +1,110 @@
+package me.hanane.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ResilienceTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deadlineInterruptsABlockingCall() throws InterruptedException {
+        final Resilience resilience = resilience(Duration.ofMillis(100), false, 0);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final CompletableFuture<String> result = resilience.call(() -> Resilience.supplyInterruptibly(() -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException exception) {
+                interrupted.countDown();
+                return "interrupted";
+            }
+        }, executor));
+
+        final CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "the call was not interrupted");
+    }
+
+    @Test
+    void hedgesAreBoundedAndCancelledWithTheirCall() {
+        final Resilience resilience = resilience(Duration.ofMillis(300), true, 1);
+        for (int i = 0; i < 20; i++) {
+            resilience.latencies().record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        final List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+        final List<CompletableFuture<String>> results = IntStream.range(0, 3)
+                .mapToObj(i -> resilience.call(() -> {
+                    final CompletableFuture<String> attempt = new CompletableFuture<>();
+                    attempts.add(attempt);
+                    return attempt;
+                }))
+                .collect(Collectors.toList());
+        results.forEach(result -> assertThrows(CompletionException.class, result::join));
+
+        assertEquals(4, attempts.size(), "3 calls and a single hedge");
+        assertTrue(attempts.stream().allMatch(CompletableFuture::isCancelled));
+    }
+
+    @Test
+    void firstAnswerWinsAndTheOtherAttemptIsCancelled() {
+        final Resilience resilience = resilience(Duration.ofSeconds(1), true, 1);
+        for (int i = 0; i < 20; i++) {
+            resilience.latencies().record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        final List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+        final String answer = resilience.call(() -> {
+            final CompletableFuture<String> attempt = attempts.isEmpty()
+                    ? new CompletableFuture<>()
+                    : CompletableFuture.completedFuture("hedge");
+            attempts.add(attempt);
+            return attempt;
+        }).join();
+
+        assertEquals("hedge", answer);
+        assertTrue(attempts.get(0).isCancelled());
+    }
+
+    @Test
+    void openBreakerRejectsCallsRightAway() {
+        final Resilience resilience = resilience(Duration.ofSeconds(1), false, 0);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(CompletionException.class,
+                    () -> resilience.call(() -> CompletableFuture.failedFuture(new IllegalStateException())).join());
+        }
+
+        final CompletionException failure = assertThrows(CompletionException.class,
+                () -> resilience.call(() -> CompletableFuture.completedFuture("ok")).join());
+        assertInstanceOf(CallNotPermittedException.class, failure.getCause());
+    }
+
+    private static Resilience resilience(Duration deadline, boolean hedging, int maxHedges) {
+        return new Resilience("test", new CircuitBreaker(4, 2, 0.5, Duration.ofMinutes(1)), new LatencyTracker(200),
+                deadline, hedging, maxHedges);
+    }
+}
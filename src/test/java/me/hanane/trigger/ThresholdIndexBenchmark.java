@@ -0,0 +1,75 @@
+package me.hanane.trigger;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Finding the threshold triggers of one field whose outcome may have changed
+ * when a new value comes in, through the {@link ThresholdIndex} against
+ * re-checking every trigger. Values follow a random walk like a temperature
+ * between two polls, so few thresholds are crossed per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThresholdIndexBenchmark {
+
+    private static final int UPDATES = 4096;
+
+    @Param({"100", "1000", "10000"})
+    private int triggers;
+
+    private final ThresholdIndex index = new ThresholdIndex();
+    private double[] thresholds;
+    private final double[] values = new double[UPDATES + 1];
+    private int update;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        thresholds = new double[triggers];
+        for (int i = 0; i < triggers; i++) {
+            thresholds[i] = -20 + random.nextDouble() * 60;
+            index.add(i, thresholds[i], 0);
+        }
+        values[0] = 15;
+        for (int i = 1; i < values.length; i++) {
+            values[i] = values[i - 1] + random.nextGaussian() * 0.5;
+        }
+    }
+
+    @Benchmark
+    public void index(Blackhole blackhole) {
+        final double from = values[update], to = values[update + 1];
+        index.visitCrossed(from, to, id -> blackhole.consume((to > thresholds[(int) id]) != (from > thresholds[(int) id])));
+        next();
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        final double from = values[update], to = values[update + 1];
+        for (int i = 0; i < thresholds.length; i++) {
+            blackhole.consume((to > thresholds[i]) != (from > thresholds[i]));
+        }
+        next();
+    }
+
+    private void next() {
+        update = (update + 1) % UPDATES;
+    }
+}
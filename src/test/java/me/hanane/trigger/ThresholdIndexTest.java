@@ -0,0 +1,87 @@
+package me.hanane.trigger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ThresholdIndexTest {
+
+    private final ThresholdIndex index = new ThresholdIndex();
+
+    @Test
+    void visitsTheThresholdsBetweenBothValuesInclusive() {
+        index.add(1, 10, 0);
+        index.add(2, 20, 0);
+        index.add(3, 30, 0);
+        index.add(4, 20, 0);
+
+        assertEquals(Set.of(2L, 4L, 3L), visited(31, 20));
+        assertEquals(Set.of(), visited(21, 29));
+        assertEquals(Set.of(1L), visited(9.5, 10));
+    }
+
+    @Test
+    void widensTheRangeByTheWidestBand() {
+        index.add(1, 10, 0);
+        index.add(2, 20, 3);
+
+        assertEquals(Set.of(2L), visited(22, 22.5));
+        assertEquals(Set.of(1L), visited(12.9, 12));
+    }
+
+    @Test
+    void unknownValuesVisitEverything() {
+        index.add(1, 10, 0);
+        index.add(2, 20, 0);
+
+        assertEquals(Set.of(1L, 2L), visited(Double.NaN, 15));
+        assertEquals(Set.of(1L, 2L), visited(15, Double.NaN));
+    }
+
+    @Test
+    void matchesAFullScan() {
+        final Random random = new Random(7);
+        final Map<Long, Double> thresholds = new HashMap<>();
+        double widestBand = 0;
+        for (long id = 0; id < 2000; id++) {
+            final double threshold = Math.round(random.nextGaussian() * 100) / 10.0;
+            final double band = random.nextInt(10) == 0 ? random.nextDouble() : 0;
+            index.add(id, threshold, band);
+            thresholds.put(id, threshold);
+            widestBand = Math.max(widestBand, band);
+        }
+        for (long id = 0; id < 2000; id += 3) {
+            assertTrue(index.remove(id));
+            thresholds.remove(id);
+        }
+        assertFalse(index.remove(0));
+        assertEquals(thresholds.size(), index.size());
+
+        for (int i = 0; i < 1000; i++) {
+            final double from = random.nextGaussian() * 10;
+            final double to = from + random.nextGaussian();
+            final double low = Math.min(from, to) - widestBand;
+            final double high = Math.max(from, to) + widestBand;
+            final Set<Long> expected = new HashSet<>();
+            thresholds.forEach((id, threshold) -> {
+                if (threshold >= low && threshold <= high) {
+                    expected.add(id);
+                }
+            });
+            assertEquals(expected, visited(from, to));
+        }
+    }
+
+    private Set<Long> visited(double from, double to) {
+        final Set<Long> ids = new HashSet<>();
+        index.visitCrossed(from, to, ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,172 @@
+package me.hanane.trigger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vaadin.flow.shared.Registration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.data.service.TriggerRepository;
+import me.hanane.location.Geolocation;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.trigger.log.TriggerEventLog;
+import me.hanane.trigger.schedule.TriggerScheduler;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherLookupService;
+import me.hanane.weather.WeatherPoller;
+import me.hanane.weather.Wind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Evaluating a whole polling cycle with one partition per location on the
+ * evaluation pool against evaluating the locations one after the other on
+ * the calling thread. Cycles alternate between two sets of snapshots, so
+ * thresholds are crossed and expressions re-checked every time. Events go to
+ * a real event log in a temporary directory. The evaluation pool gets the
+ * given parallelism, capped at the available processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriggerEngineBenchmark {
+
+    @Param({"100", "1000"})
+    private int locations;
+
+    @Param({"10", "100"})
+    private int triggersPerLocation;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int parallelism;
+
+    private Path directory;
+    private ForkJoinPool pool;
+    private TriggerEventLog eventLog;
+    private TriggerEngine engine;
+    private final Map<GridCell, WeatherInfo>[] cycles = newCycles();
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("trigger-engine-benchmark");
+        eventLog = new TriggerEventLog(directory.toString(), DataSize.ofMegabytes(64), Duration.ofDays(1));
+        eventLog.open();
+        pool = new ForkJoinPool(Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+
+        final WeatherPoller poller = mock(WeatherPoller.class);
+        when(poller.cellOf(any())).thenAnswer(invocation -> cell(invocation.getArgument(0)));
+        when(poller.watch(any())).thenReturn(mock(Registration.class));
+        final WeatherLookupService lookups = mock(WeatherLookupService.class);
+        when(lookups.weatherAsync(any(Geolocation.class)))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        // not a mock, since it is called for every firing
+        final ObjectProvider<TriggerListener> listeners = new DefaultListableBeanFactory()
+                .getBeanProvider(TriggerListener.class);
+        engine = new TriggerEngine(mock(TriggerRepository.class), poller, lookups,
+                new ExpressionCompiler(100, Duration.ofDays(1)), eventLog, pool, mock(TriggerScheduler.class),
+                listeners);
+
+        final Random random = new Random(42);
+        final TriggerField[] fields = {TriggerField.TEMPERATURE, TriggerField.HUMIDITY, TriggerField.WIND_SPEED};
+        long id = 0;
+        for (int location = 0; location < locations; location++) {
+            final double latitude = location / 10 * 0.1 + 0.05;
+            final double longitude = location % 10 * 0.1 + 0.05;
+            for (int i = 0; i < triggersPerLocation; i++) {
+                final Trigger trigger = new Trigger();
+                trigger.setId(++id);
+                trigger.setName("trigger " + id);
+                trigger.setCity("City " + location);
+                trigger.setLatitude(latitude);
+                trigger.setLongitude(longitude);
+                if (i % 4 == 0) {
+                    trigger.setExpression("temp > " + random.nextInt(10, 30) + " && humidity > 50");
+                } else {
+                    trigger.setField(fields[i % fields.length]);
+                    trigger.setOperator(TriggerOperator.GREATER_THAN);
+                    trigger.setThreshold(random.nextDouble(0, 80));
+                }
+                engine.register(trigger);
+            }
+            final GridCell cell = cell(new Geolocation("City " + location, null, null, longitude, latitude));
+            cycles[0].put(cell, weather(random.nextDouble(0, 20), random.nextInt(0, 50), random.nextDouble(0, 10)));
+            cycles[1].put(cell, weather(random.nextDouble(20, 40), random.nextInt(50, 100), random.nextDouble(10, 30)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        eventLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void parallel() {
+        engine.evaluate(nextCycle());
+    }
+
+    @Benchmark
+    public void serial() {
+        nextCycle().forEach(engine::evaluate);
+    }
+
+    private Map<GridCell, WeatherInfo> nextCycle() {
+        next ^= 1;
+        return cycles[next];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<GridCell, WeatherInfo>[] newCycles() {
+        return new Map[]{new HashMap<>(), new HashMap<>()};
+    }
+
+    private static GridCell cell(Geolocation location) {
+        return GridCell.of(location.latitude(), location.longitude(), 0.1);
+    }
+
+    private static WeatherInfo weather(double temperature, int humidity, double windSpeed) {
+        return new WeatherInfo(new Weather("Clouds", "scattered clouds", 40, 0),
+                new MainInfo(temperature, temperature, temperature, temperature, 1012, humidity, 1012, 1004),
+                new Wind(windSpeed, 180, windSpeed * 1.5));
+    }
+}
@@ -0,0 +1,185 @@
+package me.hanane.trigger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vaadin.flow.shared.Registration;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.data.service.TriggerRepository;
+import me.hanane.location.Geolocation;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.trigger.log.TriggerEventLog;
+import me.hanane.trigger.log.TriggerEventType;
+import me.hanane.trigger.schedule.TriggerScheduler;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.WeatherLookupService;
+import me.hanane.weather.WeatherPoller;
+import me.hanane.weather.Wind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+class TriggerStatesTest {
+
+    private static final Geolocation LOCATION = new Geolocation("Rabat", null, "MA", -6.84, 34.02);
+
+    @TempDir
+    Path directory;
+
+    private final TriggerStates states = new TriggerStates();
+
+    @Test
+    void doesNotFlapInsideTheHysteresisBand() {
+        final int slot = states.allocate();
+
+        // above 30 to activate, below 28 to release
+        assertEquals(TriggerTransition.FIRED, update(slot, 30.5, 1000));
+        assertEquals(TriggerTransition.UNCHANGED, update(slot, 29.5, 2000));
+        assertEquals(TriggerTransition.UNCHANGED, update(slot, 30.2, 3000));
+        assertEquals(TriggerTransition.UNCHANGED, update(slot, 28.5, 4000));
+        assertTrue(states.isActive(slot));
+        assertEquals(TriggerTransition.CHANGED, update(slot, 27.5, 5000));
+        assertEquals(TriggerTransition.UNCHANGED, update(slot, 29.5, 6000));
+        assertFalse(states.isActive(slot));
+        assertEquals(TriggerTransition.FIRED, update(slot, 31, 7000));
+    }
+
+    @Test
+    void holdsTheStateForTheMinimumDwell() {
+        final int slot = states.allocate();
+
+        assertEquals(TriggerTransition.FIRED, states.update(slot, true, 1000, 500, 0));
+        assertEquals(TriggerTransition.UNCHANGED, states.update(slot, false, 1200, 500, 0));
+        assertTrue(states.isActive(slot));
+        assertEquals(TriggerTransition.CHANGED, states.update(slot, false, 1500, 500, 0));
+        assertEquals(1500, states.transitionedAt(slot));
+    }
+
+    @Test
+    void reactivatesSilentlyWithinTheCooldown() {
+        final int slot = states.allocate();
+
+        assertEquals(TriggerTransition.FIRED, states.update(slot, true, 1000, 0, 1000));
+        assertEquals(TriggerTransition.CHANGED, states.update(slot, false, 1100, 0, 1000));
+        assertEquals(TriggerTransition.CHANGED, states.update(slot, true, 1500, 0, 1000));
+        assertTrue(states.isActive(slot));
+        assertEquals(1000, states.firedAt(slot));
+        assertEquals(TriggerTransition.CHANGED, states.update(slot, false, 1600, 0, 1000));
+        assertEquals(TriggerTransition.FIRED, states.update(slot, true, 2000, 0, 1000));
+        assertEquals(2000, states.firedAt(slot));
+    }
+
+    @Test
+    void reusesReleasedSlotsWithAFreshState() {
+        final Set<Integer> slots = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            slots.add(states.allocate());
+        }
+        assertEquals(20, slots.size());
+        states.restore(5, true, 100, 100);
+        states.release(5);
+        states.release(12);
+        assertEquals(18, states.size());
+
+        assertEquals(12, states.allocate());
+        final int reused = states.allocate();
+
+        assertEquals(5, reused);
+        assertFalse(states.isActive(reused));
+        assertEquals(0, states.transitionedAt(reused));
+        assertEquals(0, states.firedAt(reused));
+        assertEquals(20, states.allocate());
+        assertEquals(21, states.size());
+    }
+
+    @Test
+    void releasesARestoredTriggerOnceTheDwellHasPassed() throws Exception {
+        final TriggerEventLog eventLog = new TriggerEventLog(directory.toString(), DataSize.ofMegabytes(1),
+                Duration.ofDays(1));
+        eventLog.open();
+        final List<TriggerFiring> firings = new CopyOnWriteArrayList<>();
+        final TriggerEngine engine = engine(eventLog, firings::add);
+        final GridCell cell = GridCell.of(LOCATION.latitude(), LOCATION.longitude(), 0.1);
+        eventLog.append(TriggerEventType.FIRED, 1, System.currentTimeMillis(), 31);
+        engine.load();
+
+        // below the band, but the restored state changed less than the dwell ago
+        engine.evaluate(cell, weather(25));
+        engine.evaluate(cell, weather(25));
+        assertTrue(eventLog.recover().get(1L).active());
+
+        // the value no longer changes, only the held re-check releases it
+        Thread.sleep(600);
+        engine.evaluate(cell, weather(25));
+        assertFalse(eventLog.recover().get(1L).active());
+
+        Thread.sleep(600);
+        engine.evaluate(cell, weather(31));
+        assertEquals(1, firings.size());
+        assertEquals(31, firings.get(0).value());
+        eventLog.close();
+    }
+
+    private int update(int slot, double value, long now) {
+        final boolean matches = TriggerOperator.GREATER_THAN.test(value, 30, 2, states.isActive(slot));
+        return states.update(slot, matches, now, 0, 0);
+    }
+
+    private TriggerEngine engine(TriggerEventLog eventLog, TriggerListener listener) {
+        final Trigger trigger = new Trigger();
+        trigger.setId(1L);
+        trigger.setName("hot");
+        trigger.setCity(LOCATION.city());
+        trigger.setCountry(LOCATION.country());
+        trigger.setLatitude(LOCATION.latitude());
+        trigger.setLongitude(LOCATION.longitude());
+        trigger.setField(TriggerField.TEMPERATURE);
+        trigger.setOperator(TriggerOperator.GREATER_THAN);
+        trigger.setThreshold(30);
+        trigger.setHysteresis(2);
+        trigger.setMinimumDwell(Duration.ofMillis(500));
+        trigger.setEnabled(true);
+
+        final TriggerRepository repository = mock(TriggerRepository.class);
+        when(repository.findByEnabledTrue()).thenReturn(List.of(trigger));
+        final WeatherPoller poller = mock(WeatherPoller.class);
+        when(poller.cellOf(any())).thenAnswer(invocation -> {
+            final Geolocation location = invocation.getArgument(0);
+            return GridCell.of(location.latitude(), location.longitude(), 0.1);
+        });
+        when(poller.watch(any())).thenReturn(mock(Registration.class));
+        final WeatherLookupService lookups = mock(WeatherLookupService.class);
+        when(lookups.weatherAsync(any(Geolocation.class)))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        final DefaultListableBeanFactory listeners = new DefaultListableBeanFactory();
+        listeners.registerSingleton("listener", listener);
+        return new TriggerEngine(repository, poller, lookups, new ExpressionCompiler(10, Duration.ofDays(1)),
+                eventLog, ForkJoinPool.commonPool(), mock(TriggerScheduler.class),
+                listeners.getBeanProvider(TriggerListener.class));
+    }
+
+    private static WeatherInfo weather(double temperature) {
+        return new WeatherInfo(new Weather("Clear", "clear sky", 0, 0),
+                new MainInfo(temperature, temperature, temperature, temperature, 1012, 40, 1012, 1004),
+                new Wind(3, 180, 4));
+    }
+}
@@ -0,0 +1,103 @@
+package me.hanane.trigger.backtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.weather.GridCell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full backtest of thousands of triggers over millions of observations of
+ * one cell, the size the columnar replay is meant to get through in seconds.
+ * A quarter of the triggers are expressions, the rest compare one field with
+ * a threshold, some of them with a hysteresis band.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class BacktestBenchmark {
+
+    private static final String[] EXPRESSIONS = {
+            "temp > 30 && humidity > 60",
+            "wind.speed > 10 || wind.gust > 20",
+            "!(temp > 5 || rain > 0) && cloudiness < 50",
+            "feels_like < temp && pressure < 1000"};
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"1000", "5000"})
+    private int triggers;
+
+    private final GridCell cell = GridCell.of(48.85, 2.35, 0.1);
+    private ForkJoinPool pool;
+    private Backtester backtester;
+    private ObservationColumns history;
+    private List<Trigger> rules;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final long[] timestamps = new long[rows];
+        final double[][] columns = new double[TriggerField.values().length][rows];
+        final double[] walk = {15, 15, 60, 1010, 5, 8, 50, 0};
+        for (int row = 0; row < rows; row++) {
+            timestamps[row] = BacktesterTest.START + row * BacktesterTest.MINUTE;
+            for (TriggerField field : TriggerField.values()) {
+                final int column = field.ordinal();
+                walk[column] = Math.max(0, walk[column] + random.nextGaussian());
+                columns[column][row] = walk[column];
+            }
+        }
+        history = new ObservationColumns(timestamps, columns);
+        rules = new ArrayList<>(triggers);
+        final TriggerOperator[] operators = TriggerOperator.values();
+        for (int i = 0; i < triggers; i++) {
+            final Trigger trigger = BacktesterTest.threshold(i, operators[i % operators.length],
+                    10 + random.nextDouble() * 30);
+            if (i % 4 == 0) {
+                trigger.setField(null);
+                trigger.setOperator(null);
+                trigger.setExpression(EXPRESSIONS[(i / 4) % EXPRESSIONS.length]);
+            } else {
+                trigger.setField(TriggerField.values()[i % TriggerField.values().length]);
+                trigger.setHysteresis(i % 3 == 0 ? 1 : 0);
+            }
+            rules.add(trigger);
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        backtester = new Backtester(new ExpressionCompiler(100, Duration.ofDays(1)), BacktesterTest.poller(),
+                pool, 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<BacktestResult> backtest() {
+        return backtester.run(cell, rules, history, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+}
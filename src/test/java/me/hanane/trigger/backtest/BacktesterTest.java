@@ -0,0 +1,177 @@
+package me.hanane.trigger.backtest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import me.hanane.data.entity.Trigger;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.data.entity.TriggerOperator;
+import me.hanane.location.Geolocation;
+import me.hanane.trigger.expression.ExpressionCompiler;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.WeatherPoller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BacktesterTest {
+
+    static final long START = 1_700_000_000_000L;
+    static final long MINUTE = 60_000;
+
+    private final GridCell here = GridCell.of(48.85, 2.35, 0.1);
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final Backtester backtester = new Backtester(new ExpressionCompiler(10, Duration.ofDays(1)),
+            poller(), pool, 3);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void firesOnEveryRisingEdge() {
+        final ObservationColumns history = history(20, 31, 32, 20, 33, 20, 34);
+
+        final BacktestResult result = run(threshold(1, TriggerOperator.GREATER_THAN, 30), history);
+
+        assertEquals(3, result.firings());
+        assertArrayEquals(new long[]{at(1), at(4), at(6)}, result.timestamps());
+    }
+
+    @Test
+    void appliesHysteresisAndCooldown() {
+        final ObservationColumns history = history(20, 31, 29, 31, 25, 31, 25, 31);
+
+        assertEquals(4, run(threshold(1, TriggerOperator.GREATER_THAN, 30), history).firings());
+
+        // 29 is within the band, so the second 31 does not fire again
+        final Trigger banded = threshold(1, TriggerOperator.GREATER_THAN, 30);
+        banded.setHysteresis(3);
+        assertEquals(3, run(banded, history).firings());
+
+        final Trigger cooling = threshold(2, TriggerOperator.GREATER_THAN, 30);
+        cooling.setCooldown(Duration.ofMinutes(3));
+        assertArrayEquals(new long[]{at(1), at(5)}, run(cooling, history).timestamps());
+    }
+
+    @Test
+    void holdsTransitionsForTheMinimumDwell() {
+        final ObservationColumns history = history(31, 20, 20, 31, 20, 31);
+        final Trigger dwelling = threshold(1, TriggerOperator.GREATER_THAN, 30);
+        dwelling.setMinimumDwell(Duration.ofMinutes(2));
+
+        // released at minute 2, so the 31 a minute later is still held off
+        assertArrayEquals(new long[]{at(0), at(5)}, run(dwelling, history).timestamps());
+    }
+
+    @Test
+    void countsBeyondTheTimestampLimit() {
+        final ObservationColumns history = history(31, 20, 31, 20, 31, 20, 31, 20, 31);
+
+        final BacktestResult result = run(threshold(1, TriggerOperator.GREATER_THAN, 30), history);
+
+        assertEquals(5, result.firings());
+        assertEquals(3, result.timestamps().length);
+    }
+
+    @Test
+    void evaluatesExpressions() {
+        final ObservationColumns history = history(20, 31, 32, 20, 33, Double.NaN, 34);
+
+        assertEquals(3, run(expression(1, "temp > 30"), history).firings());
+        // a missing temperature is not "not above 30"
+        assertArrayEquals(new long[]{at(0), at(3)}, run(expression(2, "!(temp > 30)"), history).timestamps());
+    }
+
+    @Test
+    void onlyReplaysTriggersOfTheCell() {
+        final Trigger elsewhere = threshold(2, TriggerOperator.GREATER_THAN, 30);
+        elsewhere.setLatitude(40.71);
+        elsewhere.setLongitude(-74.01);
+
+        final List<BacktestResult> results = backtester.run(here,
+                List.of(threshold(1, TriggerOperator.GREATER_THAN, 30), elsewhere), history(20, 31), 0, Long.MAX_VALUE);
+
+        assertEquals(1, results.size());
+        assertEquals(1, results.get(0).triggerId());
+    }
+
+    @Test
+    void firesScheduledTriggersAtEveryOccurrence() {
+        final Trigger scheduled = threshold(1, null, 0);
+        scheduled.setField(null);
+        scheduled.setScheduleTime(LocalTime.of(0, 0));
+
+        final BacktestResult result = backtester.run(here, List.of(scheduled), history(20),
+                START, START + Duration.ofDays(5).toMillis()).get(0);
+
+        assertEquals(5, result.firings());
+    }
+
+    @Test
+    void rejectsValuesThatAreNotRecorded() {
+        assertThrows(IllegalArgumentException.class, () -> run(expression(1, "main.temp_min > 3"), history(20)));
+    }
+
+    private BacktestResult run(Trigger trigger, ObservationColumns history) {
+        return backtester.run(here, List.of(trigger), history, 0, Long.MAX_VALUE).get(0);
+    }
+
+    static long at(int minute) {
+        return START + minute * MINUTE;
+    }
+
+    /**
+     * One observation per minute with the given temperatures and nothing else.
+     */
+    static ObservationColumns history(double... temperatures) {
+        final long[] timestamps = new long[temperatures.length];
+        final double[][] columns = new double[TriggerField.values().length][temperatures.length];
+        for (int row = 0; row < temperatures.length; row++) {
+            timestamps[row] = at(row);
+        }
+        for (double[] column : columns) {
+            Arrays.fill(column, Double.NaN);
+        }
+        columns[TriggerField.TEMPERATURE.ordinal()] = temperatures.clone();
+        return new ObservationColumns(timestamps, columns);
+    }
+
+    static Trigger threshold(long id, TriggerOperator operator, double threshold) {
+        final Trigger trigger = new Trigger();
+        trigger.setId(id);
+        trigger.setName("trigger " + id);
+        trigger.setCity("Paris");
+        trigger.setLatitude(48.85);
+        trigger.setLongitude(2.35);
+        trigger.setField(TriggerField.TEMPERATURE);
+        trigger.setOperator(operator);
+        trigger.setThreshold(threshold);
+        return trigger;
+    }
+
+    private static Trigger expression(long id, String expression) {
+        final Trigger trigger = threshold(id, null, 0);
+        trigger.setField(null);
+        trigger.setExpression(expression);
+        return trigger;
+    }
+
+    static WeatherPoller poller() {
+        final WeatherPoller poller = mock(WeatherPoller.class);
+        when(poller.cellOf(any())).thenAnswer(invocation -> {
+            final Geolocation location = invocation.getArgument(0);
+            return GridCell.of(location.latitude(), location.longitude(), 0.1);
+        });
+        return poller;
+    }
+}
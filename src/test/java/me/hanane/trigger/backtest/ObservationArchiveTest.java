@@ -0,0 +1,84 @@
+package me.hanane.trigger.backtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import me.hanane.data.entity.TriggerField;
+import me.hanane.weather.GridCell;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.ObservationHistory;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ObservationArchiveTest {
+
+    private static final long MINUTE = 60_000;
+
+    @TempDir
+    Path directory;
+
+    private final GridCell cell = GridCell.of(48.85, 2.35, 0.1);
+    private final ObservationHistory history = new ObservationHistory(4);
+
+    @Test
+    void keepsRowsBeyondTheRingBuffer() throws Exception {
+        final ObservationArchive archive = archive(Duration.ofDays(1));
+        record(0, 3);
+        archive.archive();
+        record(3, 6);
+        archive.archive();
+
+        final ObservationColumns loaded = archive.load(cell);
+
+        assertEquals(6, loaded.size());
+        for (int row = 0; row < 6; row++) {
+            assertEquals(row * MINUTE, loaded.timestamp(row));
+            assertEquals(row, loaded.column(TriggerField.TEMPERATURE)[row]);
+        }
+    }
+
+    @Test
+    void loadsRowsNotArchivedYet() throws Exception {
+        final ObservationArchive archive = archive(Duration.ofDays(1));
+        record(0, 2);
+        archive.archive();
+        record(2, 4);
+
+        assertEquals(4, archive.load(cell).size());
+        assertEquals(4, archive(Duration.ofDays(1)).load(cell).size());
+    }
+
+    @Test
+    void dropsRowsPastTheRetention() throws Exception {
+        final ObservationArchive archive = archive(Duration.ofMinutes(2));
+        record(0, 4);
+        archive.archive();
+        history.forget(cell);
+
+        final ObservationColumns loaded = archive.load(cell);
+
+        assertEquals(3, loaded.size());
+        assertEquals(MINUTE, loaded.timestamp(0));
+    }
+
+    @Test
+    void loadsNothingForAnUnknownCell() throws Exception {
+        assertEquals(0, archive(Duration.ofDays(1)).load(cell).size());
+    }
+
+    private ObservationArchive archive(Duration retention) {
+        return new ObservationArchive(history, directory.toString(), retention);
+    }
+
+    private void record(int fromMinute, int toMinute) {
+        for (int minute = fromMinute; minute < toMinute; minute++) {
+            history.record(cell, new WeatherInfo(new Weather("Clear", "clear sky", 0, 0),
+                    new MainInfo(minute, minute, minute, minute, 1012, 60, 1012, 1004), new Wind(4, 180, 7)),
+                    minute * MINUTE);
+        }
+    }
+}
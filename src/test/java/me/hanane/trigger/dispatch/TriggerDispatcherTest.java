@@ -0,0 +1,129 @@
+package me.hanane.trigger.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import me.hanane.trigger.TriggerFiring;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+class TriggerDispatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Long> delivered = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstDelivery = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TriggerDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void droppedFiringsDoNotSuppressTheNextOne() {
+        final TriggerDispatcher dispatcher = dispatcher(1, BackpressurePolicy.DROP_OLDEST);
+
+        dispatcher.onFiring(firing(1, 0));
+        dispatcher.onFiring(firing(2, 0));
+        dispatcher.onFiring(firing(1, 1000));
+
+        assertEquals(0, count("trigger.dispatch.deduplicated"));
+        assertEquals(2, count("trigger.dispatch.dropped"));
+        dispatcher.onFiring(firing(1, 2000));
+        assertEquals(1, count("trigger.dispatch.deduplicated"));
+    }
+
+    @Test
+    void spillsAndReplaysInFiringOrder() throws Exception {
+        dispatcher = dispatcher(1, BackpressurePolicy.SPILL);
+        dispatcher.start();
+
+        dispatcher.onFiring(firing(1, 0));
+        assertTrue(firstDelivery.await(5, TimeUnit.SECONDS));
+        for (long trigger = 2; trigger <= 5; trigger++) {
+            dispatcher.onFiring(firing(trigger, 0));
+        }
+        assertEquals(3, count("trigger.dispatch.spilled"));
+        assertEquals(3, registry.get("trigger.dispatch.spill.depth").gauge().value());
+
+        release.countDown();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // counted once the whole batch is delivered
+        while (count("trigger.dispatch.delivered") < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), delivered);
+        assertEquals(0, registry.get("trigger.dispatch.spill.depth").gauge().value());
+        assertEquals(0, registry.get("trigger.dispatch.queue.depth").gauge().value());
+        assertEquals(5, count("trigger.dispatch.delivered"));
+        assertEquals(5, registry.get("trigger.dispatch.latency").timer().count());
+        assertTrue(Files.notExists(directory.resolve("spill.jsonl")));
+    }
+
+    @Test
+    void flushesTheSpillFileOncePerBatch() throws Exception {
+        dispatcher = dispatcher(1, BackpressurePolicy.SPILL);
+        dispatcher.start();
+        dispatcher.onFiring(firing(1, 0));
+        assertTrue(firstDelivery.await(5, TimeUnit.SECONDS));
+        dispatcher.onFiring(firing(2, 0));
+
+        // the dispatch thread is busy delivering, so only a full batch is flushed
+        final Path spillFile = directory.resolve("spill.jsonl");
+        for (long trigger = 3; trigger <= 11; trigger++) {
+            dispatcher.onFiring(firing(trigger, 0));
+        }
+        assertEquals(0, Files.size(spillFile));
+        dispatcher.onFiring(firing(12, 0));
+        assertEquals(10, Files.readAllLines(spillFile).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private TriggerDispatcher dispatcher(int capacity, BackpressurePolicy policy) {
+        final TriggerDelivery delivery = (recipient, firings) -> {
+            firstDelivery.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            firings.forEach(firing -> delivered.add(firing.triggerId()));
+        };
+        final ObjectProvider<TriggerDelivery> deliveries = mock(ObjectProvider.class);
+        when(deliveries.orderedStream()).thenAnswer(invocation -> Stream.of(delivery));
+        final TriggerDispatcher result = new TriggerDispatcher(capacity, policy, Duration.ofMinutes(5), 10,
+                Duration.ofMillis(1), directory.resolve("spill.jsonl").toString(), deliveries);
+        result.bindTo(registry);
+        return result;
+    }
+
+    private double count(String name) {
+        return registry.get(name).functionCounter().count();
+    }
+
+    private static TriggerFiring firing(long trigger, long timestamp) {
+        return new TriggerFiring(trigger, "trigger " + trigger, "owner", null, null, Double.NaN, Double.NaN,
+                "temp > 30", null, timestamp);
+    }
+}
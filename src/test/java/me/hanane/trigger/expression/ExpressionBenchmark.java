@@ -0,0 +1,124 @@
+package me.hanane.trigger.expression;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import me.hanane.trigger.expression.Expression.And;
+import me.hanane.trigger.expression.Expression.Comparison;
+import me.hanane.trigger.expression.Expression.Field;
+import me.hanane.trigger.expression.Expression.Not;
+import me.hanane.trigger.expression.Expression.Number;
+import me.hanane.trigger.expression.Expression.Operand;
+import me.hanane.trigger.expression.Expression.Or;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluating a trigger expression through the compiled method handle chain
+ * against walking its syntax tree, with values looked up by name on every
+ * evaluation. Both read a missing part as NaN and push negations down to the
+ * comparisons, so they agree on every input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final WeatherInfo[] WEATHER = {
+            new WeatherInfo(new Weather("Rain", "light rain", 90, 0.8),
+                    new MainInfo(31, 33, 25, 32, 1012, 60, 1012, 1004), new Wind(4, 180, 7)),
+            new WeatherInfo(new Weather("Clear", "clear sky", 0, 0),
+                    new MainInfo(12, 10, 8, 14, 1020, 40, 1020, 1011), new Wind(12, 270, 20)),
+            new WeatherInfo(new Weather("Clouds", "overcast clouds", 100, 0),
+                    new MainInfo(22, 22, 20, 24, 1008, 80, 1008, 1000), null)};
+
+    @Param({"temp > 30",
+            "temp > 30 && humidity > 50 || wind.speed > 10",
+            "!(rain > 0 || wind.gust > 15) && cloudiness < 50 && feels_like >= temp"})
+    private String text;
+
+    private CompiledExpression compiled;
+    private Expression tree;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        compiled = new ExpressionCompiler(1, Duration.ofDays(1)).compile(text);
+        tree = ExpressionParser.parse(text);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.test(nextWeather());
+    }
+
+    @Benchmark
+    public boolean interpreted() {
+        return evaluate(tree, nextWeather());
+    }
+
+    private WeatherInfo nextWeather() {
+        next = (next + 1) % WEATHER.length;
+        return WEATHER[next];
+    }
+
+    private static boolean evaluate(Expression expression, WeatherInfo weather) {
+        if (expression instanceof And and) {
+            return evaluate(and.left(), weather) && evaluate(and.right(), weather);
+        }
+        if (expression instanceof Or or) {
+            return evaluate(or.left(), weather) || evaluate(or.right(), weather);
+        }
+        if (expression instanceof Not not) {
+            return evaluate(ExpressionCompiler.negate(not.operand()), weather);
+        }
+        final Comparison comparison = (Comparison) expression;
+        final double left = value(comparison.left(), weather);
+        final double right = value(comparison.right(), weather);
+        return switch (comparison.relation()) {
+            case GREATER_THAN -> left > right;
+            case GREATER_OR_EQUAL -> left >= right;
+            case LESS_THAN -> left < right;
+            case LESS_OR_EQUAL -> left <= right;
+            case EQUAL -> left == right;
+            case NOT_EQUAL -> left != right && !Double.isNaN(left) && !Double.isNaN(right);
+        };
+    }
+
+    private static double value(Operand operand, WeatherInfo weather) {
+        if (operand instanceof Number number) {
+            return number.value();
+        }
+        final Field field = (Field) operand;
+        final String name = field.part() == null ? field.name() : field.part() + "." + field.name();
+        final MainInfo main = weather.mainInfo();
+        final Wind wind = weather.wind();
+        final Weather sky = weather.weather();
+        return switch (name) {
+            case "temp", "main.temp" -> main == null ? Double.NaN : main.temp();
+            case "feels_like", "main.feels_like" -> main == null ? Double.NaN : main.feels_like();
+            case "humidity", "main.humidity" -> main == null ? Double.NaN : main.humidity();
+            case "pressure", "main.pressure" -> main == null ? Double.NaN : main.pressure();
+            case "wind.speed" -> wind == null ? Double.NaN : wind.speed();
+            case "wind.gust" -> wind == null ? Double.NaN : wind.gust();
+            case "cloudiness", "weather.cloudiness" -> sky == null ? Double.NaN : sky.cloudiness();
+            case "rain", "weather.rainLastHour" -> sky == null ? Double.NaN : sky.rainLastHour();
+            default -> throw new IllegalArgumentException("Unknown value '" + name + "'");
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package me.hanane.trigger.expression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import me.hanane.weather.MainInfo;
+import me.hanane.weather.Weather;
+import me.hanane.weather.WeatherInfo;
+import me.hanane.weather.Wind;
+import org.junit.jupiter.api.Test;
+
+class ExpressionCompilerTest {
+
+    private static final WeatherInfo WARM = new WeatherInfo(
+            new Weather("Rain", "light rain", 90, 0.8),
+            new MainInfo(31, 33, 25, 32, 1012, 60, 1012, 1004),
+            new Wind(4, 180, 7));
+    private static final WeatherInfo NO_WIND = new WeatherInfo(WARM.weather(), WARM.mainInfo(), null);
+
+    private final ExpressionCompiler compiler = new ExpressionCompiler(2, Duration.ofDays(1));
+
+    @Test
+    void comparesValues() {
+        assertTrue(test("main.temp > 30", WARM));
+        assertTrue(test("temp > 30", WARM));
+        assertTrue(test("30 < temp", WARM));
+        assertTrue(test("rain > 0.5", WARM));
+        assertTrue(test("wind.gust > wind.speed", WARM));
+        assertTrue(test("cloudiness == 90", WARM));
+        assertFalse(test("humidity != 60", WARM));
+    }
+
+    @Test
+    void combinesComparisons() {
+        assertTrue(test("temp > 30 && rain > 0", WARM));
+        assertFalse(test("temp > 30 && rain > 1", WARM));
+        assertTrue(test("temp > 40 || rain > 0", WARM));
+        assertTrue(test("!(temp > 40) && !(rain <= 0)", WARM));
+        assertFalse(test("!(temp > 30 || rain > 1)", WARM));
+        assertTrue(test("!!(temp > 30)", WARM));
+    }
+
+    @Test
+    void missingValuesNeverMatch() {
+        for (String text : new String[]{"wind.speed > 0", "wind.speed <= 0", "wind.speed == 0", "wind.speed != 0",
+                "!(wind.speed > 0)", "!(wind.speed == 0)", "!(wind.speed != 0)", "!(temp > 40 || wind.speed > 0)",
+                "!(temp > 30 && wind.speed > 0)", "!!(wind.speed > 0)"}) {
+            assertFalse(test(text, NO_WIND), text);
+        }
+    }
+
+    @Test
+    void knownPartsStillDecide() {
+        // unknown || true is true, unknown && false is false, whatever the negation
+        assertTrue(test("wind.speed > 0 || temp > 30", NO_WIND));
+        assertTrue(test("!(wind.speed > 0 && temp > 40)", NO_WIND));
+        assertFalse(test("!(wind.speed > 0 || temp > 30)", NO_WIND));
+    }
+
+    @Test
+    void rejectsUnknownValues() {
+        final ExpressionException unknown = assertThrows(ExpressionException.class,
+                () -> compiler.compile("temp > 30 && main.snow > 0"));
+        assertEquals(13, unknown.getPosition());
+
+        assertThrows(ExpressionException.class, () -> compiler.compile("sky.temp > 30"));
+        assertThrows(ExpressionException.class, () -> compiler.compile("weather.description > 1"));
+        assertThrows(ExpressionException.class, () -> compiler.compile("1 > 2"));
+    }
+
+    @Test
+    void cachesByTextUpToTheBound() {
+        final CompiledExpression first = compiler.compile("temp > 30");
+        assertSame(first, compiler.compile("  temp > 30 "));
+
+        compiler.compile("temp > 31");
+        compiler.compile("temp > 32");
+
+        assertEquals(2, compiler.size());
+        assertNotSame(first, compiler.compile("temp > 30"));
+    }
+
+    private boolean test(String text, WeatherInfo weather) {
+        return compiler.compile(text).test(weather);
+    }
+}
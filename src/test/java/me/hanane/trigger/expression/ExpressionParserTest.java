@@ -0,0 +1,78 @@
+package me.hanane.trigger.expression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import me.hanane.trigger.expression.Expression.And;
+import me.hanane.trigger.expression.Expression.Comparison;
+import me.hanane.trigger.expression.Expression.Field;
+import me.hanane.trigger.expression.Expression.Not;
+import me.hanane.trigger.expression.Expression.Number;
+import me.hanane.trigger.expression.Expression.Or;
+import me.hanane.trigger.expression.Expression.Relation;
+import org.junit.jupiter.api.Test;
+
+class ExpressionParserTest {
+
+    @Test
+    void parsesAComparison() {
+        assertEquals(new Comparison(new Field("main", "temp", 0), Relation.GREATER_OR_EQUAL, new Number(30, 13)),
+                ExpressionParser.parse("main.temp >= 30"));
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        final Expression expression = ExpressionParser.parse("temp > 30 || rain > 0 && wind.speed < 5");
+
+        final Or or = (Or) expression;
+        assertEquals(Comparison.class, or.left().getClass());
+        assertEquals(And.class, or.right().getClass());
+    }
+
+    @Test
+    void parenthesesGroup() {
+        final Expression expression = ExpressionParser.parse("(temp > 30 || rain > 0) && wind.speed < 5");
+
+        final And and = (And) expression;
+        assertEquals(Or.class, and.left().getClass());
+    }
+
+    @Test
+    void notAppliesToTheNextUnary() {
+        final Expression expression = ExpressionParser.parse("!temp > 30 && !(rain > 0)");
+
+        final And and = (And) expression;
+        assertEquals(Comparison.class, ((Not) and.left()).operand().getClass());
+        assertEquals(Comparison.class, ((Not) and.right()).operand().getClass());
+    }
+
+    @Test
+    void readsTwoCharacterRelations() {
+        for (Relation relation : Relation.values()) {
+            final Comparison comparison = (Comparison) ExpressionParser.parse("temp" + relation.getSymbol() + "1");
+            assertEquals(relation, comparison.relation());
+        }
+    }
+
+    @Test
+    void readsNegativeAndFractionalNumbers() {
+        final Comparison comparison = (Comparison) ExpressionParser.parse("temp < -2.5");
+
+        assertEquals(-2.5, ((Number) comparison.right()).value());
+    }
+
+    @Test
+    void reportsThePositionOfAnError() {
+        final ExpressionException missingRelation = assertThrows(ExpressionException.class,
+                () -> ExpressionParser.parse("temp 30"));
+        assertEquals(5, missingRelation.getPosition());
+
+        final ExpressionException unclosed = assertThrows(ExpressionException.class,
+                () -> ExpressionParser.parse("(temp > 30"));
+        assertEquals(10, unclosed.getPosition());
+
+        final ExpressionException trailing = assertThrows(ExpressionException.class,
+                () -> ExpressionParser.parse("temp > 30)"));
+        assertEquals(9, trailing.getPosition());
+    }
+}
@@ -0,0 +1,182 @@
+package me.hanane.trigger.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class TriggerEventLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversTheStatesAfterARestart() throws IOException {
+        final TriggerEventLog log = open();
+        log.append(TriggerEventType.ACTIVATED, 1, 100, 31);
+        log.append(TriggerEventType.FIRED, 2, 110, 32);
+        log.append(TriggerEventType.RELEASED, 1, 120, 29);
+        log.append(TriggerEventType.FIRED, 3, 130, 33);
+        log.append(TriggerEventType.REMOVED, 3, 140, Double.NaN);
+        log.close();
+
+        final Map<Long, TriggerState> states = open().recover();
+
+        assertEquals(Map.of(1L, new TriggerState(false, 120, 0), 2L, new TriggerState(true, 110, 110)), states);
+    }
+
+    @Test
+    void appendsBatchesAcrossSegments() throws IOException {
+        final TriggerEventLog log = open();
+        final TriggerEventLog.Batch batch = log.batch();
+        for (long trigger = 1; trigger <= 10; trigger++) {
+            batch.add(TriggerEventType.FIRED, trigger, trigger * 10, trigger);
+        }
+        batch.commit();
+        batch.add(TriggerEventType.RELEASED, 1, 200, 0);
+        batch.commit();
+        log.append(TriggerEventType.FIRED, 11, 300, 0);
+        log.close();
+
+        final Map<Long, TriggerState> states = open().recover();
+
+        assertEquals(11, states.size());
+        assertEquals(new TriggerState(false, 200, 10), states.get(1L));
+        assertEquals(new TriggerState(true, 300, 300), states.get(11L));
+        assertEquals(4, segments().count());
+    }
+
+    @Test
+    void replaysOnlyTheRecordsAfterTheSnapshot() throws IOException {
+        final TriggerEventLog log = open();
+        log.append(TriggerEventType.FIRED, 1, 100, 31);
+        log.snapshot(consumer -> consumer.accept(1, true, 100, 100));
+        log.append(TriggerEventType.RELEASED, 1, 200, 29);
+        log.append(TriggerEventType.FIRED, 2, 210, 31);
+        log.close();
+
+        // the snapshot says 7, so the record of trigger 1 before it is not replayed
+        final TriggerEventLog reopened = open();
+        reopened.snapshot(consumer -> consumer.accept(7, true, 50, 50));
+        final Map<Long, TriggerState> states = reopened.recover();
+
+        assertEquals(Map.of(7L, new TriggerState(true, 50, 50)), states);
+    }
+
+    @Test
+    void stopsTheWholeReplayAtTheFirstCorruptRecord() throws IOException {
+        final TriggerEventLog log = open();
+        for (long trigger = 1; trigger <= 7; trigger++) {
+            log.append(TriggerEventType.FIRED, trigger, trigger * 10, trigger);
+        }
+        log.close();
+        corrupt(segment(0), TriggerEventLog.RECORD_BYTES + 5);
+
+        final Map<Long, TriggerState> states = open().recover();
+
+        // segments 1 and 2 are intact, but follow the gap
+        assertEquals(Map.of(1L, new TriggerState(true, 10, 10)), states);
+    }
+
+    @Test
+    void fallsBackToThePreviousSnapshot() throws IOException {
+        final TriggerEventLog log = open();
+        log.append(TriggerEventType.FIRED, 1, 100, 31);
+        log.snapshot(consumer -> consumer.accept(1, true, 100, 100));
+        log.append(TriggerEventType.FIRED, 2, 200, 31);
+        log.snapshot(consumer -> {
+            consumer.accept(1, true, 100, 100);
+            consumer.accept(2, true, 200, 200);
+        });
+        log.append(TriggerEventType.FIRED, 3, 300, 31);
+        log.close();
+        corrupt(directory.resolve("snapshot.bin"), 20);
+
+        final Map<Long, TriggerState> states = open().recover();
+
+        assertEquals(3, states.size());
+        assertEquals(new TriggerState(true, 200, 200), states.get(2L));
+    }
+
+    @Test
+    void keepsTheSegmentsOfThePreviousSnapshot() throws IOException {
+        final TriggerEventLog log = snapshotEverySegment();
+
+        // the last snapshot covers segments 0 and 1, the previous one only segment 0
+        assertFalse(Files.exists(segment(0)));
+        assertTrue(Files.exists(segment(1)));
+    }
+
+    @Test
+    void failsWhenNoSnapshotCoversTheDeletedSegments() throws IOException {
+        final TriggerEventLog log = snapshotEverySegment();
+        log.close();
+        corrupt(directory.resolve("snapshot.bin"), 20);
+        corrupt(directory.resolve("snapshot.previous.bin"), 20);
+
+        assertThrows(IOException.class, () -> open().recover());
+    }
+
+    /**
+     * Fills three segments, taking a snapshot after each and letting every
+     * segment expire.
+     */
+    private TriggerEventLog snapshotEverySegment() throws IOException {
+        final TriggerEventLog log = open();
+        for (long trigger = 1; trigger <= 9; trigger++) {
+            log.append(TriggerEventType.FIRED, trigger, trigger * 10, trigger);
+            expire();
+            if (trigger % 3 == 0) {
+                log.snapshot(consumer -> { });
+            }
+        }
+        return log;
+    }
+
+    /**
+     * A log whose segments hold three records.
+     */
+    private TriggerEventLog open() throws IOException {
+        final TriggerEventLog log = new TriggerEventLog(directory.toString(),
+                DataSize.ofBytes(TriggerEventLog.RECORD_BYTES * 3L), Duration.ofDays(1));
+        log.open();
+        return log;
+    }
+
+    private void expire() throws IOException {
+        try (Stream<Path> segments = segments()) {
+            for (Path segment : (Iterable<Path>) segments::iterator) {
+                Files.setLastModifiedTime(segment, FileTime.fromMillis(0));
+            }
+        }
+    }
+
+    private Stream<Path> segments() throws IOException {
+        return Files.list(directory).filter(file -> file.getFileName().toString().startsWith("events-"));
+    }
+
+    private Path segment(long number) {
+        return directory.resolve(String.format("events-%020d.log", number));
+    }
+
+    private static void corrupt(Path file, long offset) throws IOException {
+        try (RandomAccessFile access = new RandomAccessFile(file.toFile(), "rw")) {
+            access.seek(offset);
+            final int value = access.read();
+            access.seek(offset);
+            access.write(value ^ 0xFF);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package me.hanane.trigger.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesOnTheDeadlineTick() {
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("a", 5 * TICK);
+
+        assertEquals(List.of(), wheel.advance(4 * TICK + 999));
+        assertEquals(List.of("a"), wheel.advance(5 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesOnTheDeadlineTickAtEveryLevelBoundary() {
+        // a deadline on a multiple of 64 is reached by cascading a higher level
+        for (long boundary : new long[]{64, 64 * 64, 64 * 64 * 64, 64L * 64 * 64 * 64}) {
+            for (long deadline = boundary - 1; deadline <= boundary + 1; deadline++) {
+                final TimingWheel<Long> wheel = new TimingWheel<>(TICK, 0);
+                wheel.schedule(deadline, deadline * TICK);
+
+                assertEquals(List.of(), wheel.advance((deadline - 1) * TICK), "before tick " + deadline);
+                assertEquals(List.of(deadline), wheel.advance(deadline * TICK), "on tick " + deadline);
+            }
+        }
+    }
+
+    @Test
+    void firesAtMidnightUtc() {
+        final long now = Instant.parse("2026-10-17T18:42:05Z").toEpochMilli();
+        final long midnight = LocalDate.of(2026, 10, 18).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, now);
+        wheel.schedule("daily", midnight);
+
+        assertEquals(List.of(), wheel.advance(midnight - TICK));
+        assertEquals(List.of("daily"), wheel.advance(midnight));
+    }
+
+    @Test
+    void firesDeadlinesBeyondTheTopLevel() {
+        final long deadline = 64L * 64 * 64 * 64 * 3 + 17;
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("far", deadline * TICK);
+
+        assertEquals(List.of(), wheel.advance((deadline - 1) * TICK));
+        assertEquals(List.of("far"), wheel.advance(deadline * TICK));
+    }
+
+    @Test
+    void returnsEarlierTicksFirst() {
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("c", 200 * TICK);
+        wheel.schedule("a", 64 * TICK);
+        wheel.schedule("b", 65 * TICK);
+
+        assertEquals(List.of("a", "b", "c"), wheel.advance(300 * TICK));
+    }
+
+    @Test
+    void firesPassedDeadlinesOnTheNextTick() {
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, 100 * TICK);
+        wheel.schedule("late", 50 * TICK);
+
+        assertEquals(List.of("late"), wheel.advance(101 * TICK));
+    }
+
+    @Test
+    void cancelsScheduledItems() {
+        final TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        final TimingWheel.Node<String> cancelled = wheel.schedule("a", 4096 * TICK);
+        final TimingWheel.Node<String> kept = wheel.schedule("b", 4096 * TICK);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(4096 * TICK));
+        assertFalse(wheel.cancel(kept));
+    }
+}
@@ -0,0 +1,182 @@
+package me.hanane.views.triggers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import me.hanane.data.service.Keyset;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class KeysetPagingTest {
+
+    private static final int ROWS = 1000;
+    private static final int LIMIT = 50;
+
+    @Test
+    void servesConsecutivePagesBySeeking() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+
+        for (int offset = 0; offset < 200; offset += LIMIT) {
+            assertEquals(rows.sorted(byName()).subList(offset, offset + LIMIT), fetch(paging, offset, byName()));
+        }
+        assertEquals(0, rows.probes.size());
+        assertEquals(200, rows.loaded);
+    }
+
+    @Test
+    void jumpsToAFarOffsetWithoutLoadingTheRowsBefore() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+
+        assertEquals(rows.sorted(byName()).subList(300, 300 + LIMIT), fetch(paging, 300, byName()));
+        assertEquals(List.of("name ASC,id ASC @ 299"), rows.probes);
+        assertEquals(LIMIT, rows.loaded);
+    }
+
+    @Test
+    void jumpsNearTheEndFromTheEnd() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+
+        assertEquals(rows.sorted(byName()).subList(900, 900 + LIMIT), fetch(paging, 900, byName()));
+        assertEquals(List.of("name DESC,id DESC @ 100"), rows.probes);
+        assertEquals(LIMIT, rows.loaded);
+    }
+
+    @Test
+    void jumpsInDescendingOrder() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+        final List<QuerySortOrder> descending = QuerySortOrder.desc("name").build();
+
+        assertEquals(rows.sorted(descending).subList(300, 300 + LIMIT), fetch(paging, 300, descending));
+        assertEquals(rows.sorted(descending).subList(800, 800 + LIMIT), fetch(paging, 800, descending));
+        assertEquals(List.of("name DESC,id ASC @ 299", "name ASC,id DESC @ 200"), rows.probes);
+    }
+
+    @Test
+    void walksForwardWithinAPageOfAKnownOffset() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+        fetch(paging, 0, byName());
+
+        assertEquals(rows.sorted(byName()).subList(80, 80 + LIMIT), fetch(paging, 80, byName()));
+        assertEquals(0, rows.probes.size());
+    }
+
+    @Test
+    void servesNothingPastTheEnd() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+
+        assertTrue(fetch(paging, ROWS, byName()).isEmpty());
+        assertEquals(rows.sorted(byName()).subList(ROWS - 10, ROWS), fetch(paging, ROWS - 10, byName()));
+    }
+
+    @Test
+    void forgetsThePositionsOnReset() {
+        final Rows rows = new Rows(people(ROWS));
+        final KeysetPaging<Person> paging = new KeysetPaging<>(rows);
+        fetch(paging, 300, byName());
+        rows.people.subList(0, 100).clear();
+        paging.reset();
+
+        assertEquals(rows.sorted(byName()).subList(300, 300 + LIMIT), fetch(paging, 300, byName()));
+    }
+
+    private static List<Person> fetch(KeysetPaging<Person> paging, int offset, List<QuerySortOrder> sortOrders) {
+        return paging.fetch(new Query<>(offset, LIMIT, sortOrders, null, null)).collect(Collectors.toList());
+    }
+
+    private static List<QuerySortOrder> byName() {
+        return QuerySortOrder.asc("name").build();
+    }
+
+    /**
+     * People with names repeating every 7 ids and some without a name, so the
+     * id has to break ties.
+     */
+    private static List<Person> people(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(id -> new Person((long) id, id % 11 == 0 ? null : "name" + id % 7))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    public record Person(Long id, String name) {
+    }
+
+    private static final class Rows implements KeysetPaging.Source<Person> {
+
+        private final List<Person> people;
+        private final List<String> probes = new ArrayList<>();
+        private int loaded;
+
+        Rows(List<Person> people) {
+            this.people = people;
+        }
+
+        @Override
+        public List<Person> list(Sort sort, Keyset after, int limit) {
+            final List<Person> sorted = sorted(sort);
+            int from = 0;
+            if (after != null) {
+                while (from < sorted.size() && !after.equals(Keyset.after(sorted.get(from), sort))) {
+                    from++;
+                }
+                from++;
+            }
+            final List<Person> page = sorted.subList(Math.min(from, sorted.size()),
+                    Math.min(from + limit, sorted.size()));
+            loaded += page.size();
+            return List.copyOf(page);
+        }
+
+        @Override
+        public Keyset keysetAt(Sort sort, int index) {
+            probes.add(sort.toString().replace(":", "") + " @ " + index);
+            final List<Person> sorted = sorted(sort);
+            return index < sorted.size() ? Keyset.after(sorted.get(index), sort) : null;
+        }
+
+        @Override
+        public int count() {
+            return people.size();
+        }
+
+        List<Person> sorted(List<QuerySortOrder> sortOrders) {
+            return sorted(Keyset.withId(Sort.by(sortOrders.stream()
+                    .map(order -> new Sort.Order(order.getDirection() == SortDirection.ASCENDING
+                            ? Sort.Direction.ASC
+                            : Sort.Direction.DESC, order.getSorted()))
+                    .collect(Collectors.toList()))));
+        }
+
+        /**
+         * Sorts like the database, with NULLs lowest.
+         */
+        List<Person> sorted(Sort sort) {
+            Comparator<Person> comparator = null;
+            for (Sort.Order order : sort) {
+                Comparator<Person> column = order.getProperty().equals("id")
+                        ? Comparator.comparing(Person::id)
+                        : Comparator.comparing(Person::name, Comparator.nullsFirst(Comparator.naturalOrder()));
+                if (order.isDescending()) {
+                    column = column.reversed();
+                }
+                comparator = comparator == null ? column : comparator.thenComparing(column);
+            }
+            final List<Person> sorted = new ArrayList<>(people);
+            sorted.sort(comparator);
+            return sorted;
+        }
+    }
+}
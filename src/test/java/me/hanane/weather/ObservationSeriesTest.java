@@ -0,0 +1,131 @@
+package me.hanane.weather;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import me.hanane.data.entity.TriggerField;
+import org.junit.jupiter.api.Test;
+
+class ObservationSeriesTest {
+
+    @Test
+    void keepsTheNewestRows() {
+        final ObservationSeries series = new ObservationSeries(3);
+        for (int minute = 0; minute < 5; minute++) {
+            series.append(minute * 60_000L, weather(minute, 1));
+        }
+
+        assertEquals(3, series.size());
+        assertEquals(240_000, series.latestTimestamp());
+        assertEquals(4, series.latest(TriggerField.TEMPERATURE));
+    }
+
+    @Test
+    void aggregatesWithinTheWindow() {
+        final ObservationSeries series = new ObservationSeries(10);
+        for (int minute = 0; minute < 5; minute++) {
+            series.append(minute * 60_000L, weather(minute, 0.5));
+        }
+
+        final Duration window = Duration.ofMinutes(2);
+        assertEquals(1.5, series.sum(TriggerField.RAIN, window));
+        assertEquals(2, series.min(TriggerField.TEMPERATURE, window));
+        assertEquals(4, series.max(TriggerField.TEMPERATURE, window));
+        assertEquals(2, series.delta(TriggerField.TEMPERATURE, window));
+    }
+
+    @Test
+    void aggregatesOnlyTheRowsStillHeld() {
+        final ObservationSeries series = new ObservationSeries(3);
+        for (int minute = 0; minute < 5; minute++) {
+            series.append(minute * 60_000L, weather(minute, minute));
+        }
+
+        final Duration window = Duration.ofHours(1);
+        assertEquals(9, series.sum(TriggerField.RAIN, window));
+        assertEquals(2, series.min(TriggerField.TEMPERATURE, window));
+        assertEquals(4, series.max(TriggerField.TEMPERATURE, window));
+        assertEquals(2, series.delta(TriggerField.TEMPERATURE, window));
+    }
+
+    @Test
+    void skipsMissingValues() {
+        final ObservationSeries series = new ObservationSeries(10);
+        assertEquals(0, series.sum(TriggerField.RAIN, Duration.ofHours(1)));
+        assertTrue(Double.isNaN(series.min(TriggerField.TEMPERATURE, Duration.ofHours(1))));
+        assertTrue(Double.isNaN(series.max(TriggerField.TEMPERATURE, Duration.ofHours(1))));
+
+        series.append(0, weather(10, 1));
+        series.append(60_000, new WeatherInfo(null, null, null));
+        series.append(120_000, weather(7, 2));
+        series.append(180_000, new WeatherInfo(null, null, null));
+
+        final Duration window = Duration.ofMinutes(3);
+        assertEquals(3, series.sum(TriggerField.RAIN, window));
+        assertEquals(7, series.min(TriggerField.TEMPERATURE, window));
+        assertEquals(10, series.max(TriggerField.TEMPERATURE, window));
+        assertEquals(-3, series.delta(TriggerField.TEMPERATURE, window));
+        assertTrue(Double.isNaN(series.delta(TriggerField.TEMPERATURE, Duration.ofMinutes(2))));
+    }
+
+    @Test
+    void accumulatesRainOverTimeRatherThanPerPoll() {
+        final ObservationSeries series = new ObservationSeries(100);
+        // 6 mm in every hour, polled every ten minutes for three hours
+        for (int minute = 0; minute <= 180; minute += 10) {
+            series.append(minute * 60_000L, weather(20, 6));
+        }
+
+        assertEquals(18, series.accumulation(TriggerField.RAIN, Duration.ofHours(3)), 1e-9);
+        assertEquals(2.5, series.accumulation(TriggerField.RAIN, Duration.ofMinutes(25)), 1e-9);
+        assertEquals(114, series.sum(TriggerField.RAIN, Duration.ofHours(3)));
+        assertEquals(0, new ObservationSeries(4).accumulation(TriggerField.RAIN, Duration.ofHours(1)));
+    }
+
+    @Test
+    void accumulatesNothingOverMissingValues() {
+        final ObservationSeries series = new ObservationSeries(10);
+        series.append(0, weather(20, 6));
+        series.append(600_000, new WeatherInfo(null, null, null));
+        series.append(1_200_000, weather(20, 12));
+
+        assertEquals(2, series.accumulation(TriggerField.RAIN, Duration.ofHours(1)), 1e-9);
+    }
+
+    @Test
+    void recordsTheSameSnapshotOnce() {
+        final ObservationSeries series = new ObservationSeries(10);
+        final WeatherInfo weather = weather(20, 0);
+        series.append(0, weather);
+        series.append(60_000, weather);
+
+        assertEquals(1, series.size());
+    }
+
+    @Test
+    void copiesRowsOldestFirst() {
+        final ObservationSeries series = new ObservationSeries(4);
+        for (int minute = 0; minute < 6; minute++) {
+            series.append(minute * 60_000L, weather(minute, 0));
+        }
+        series.append(360_000, new WeatherInfo(null, null, null));
+
+        final ObservationSeries.Rows rows = series.rowsAfter(120_000);
+
+        assertArrayEquals(new long[]{180_000, 240_000, 300_000, 360_000}, rows.timestamps());
+        final double[] temperatures = rows.columns()[TriggerField.TEMPERATURE.ordinal()];
+        assertArrayEquals(new double[]{3, 4, 5}, Arrays.copyOf(temperatures, 3));
+        assertTrue(Double.isNaN(temperatures[3]));
+        assertEquals(2, series.rowsAfter(240_000).size());
+        assertEquals(0, new ObservationSeries(4).rowsAfter(Long.MIN_VALUE).size());
+    }
+
+    private static WeatherInfo weather(double temperature, double rain) {
+        return new WeatherInfo(new Weather("Rain", "light rain", 90, rain),
+                new MainInfo(temperature, temperature, temperature, temperature, 1012, 60, 1012, 1004),
+                new Wind(4, 180, 7));
+    }
+}
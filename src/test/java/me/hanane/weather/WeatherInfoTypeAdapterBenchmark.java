@@ -0,0 +1,74 @@
+package me.hanane.weather;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import me.hanane.config.GsonConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a provider payload with the streaming {@link WeatherInfoTypeAdapter}
+ * against parsing it into a {@link JsonObject} tree first, as the weather
+ * client used to. Both read the response body as bytes, the way
+ * {@link WeatherProviderClient} does.
+ *
+ * Run with {@code -Pbenchmark -Dbenchmark="WeatherInfoTypeAdapterBenchmark -prof gc"}
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per decode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherInfoTypeAdapterBenchmark {
+
+    private final Gson gson = new GsonConfig().providerGson();
+    private final byte[] payload = WeatherInfoTypeAdapterTest.PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public WeatherInfo streaming() {
+        return gson.fromJson(reader(), WeatherInfo.class);
+    }
+
+    @Benchmark
+    public WeatherInfo tree() {
+        final JsonObject json = JsonParser.parseReader(reader()).getAsJsonObject();
+        final JsonObject main = json.getAsJsonObject("main");
+        final JsonObject wind = json.getAsJsonObject("wind");
+        final JsonArray weather = json.getAsJsonArray("weather");
+        final JsonObject first = weather.get(0).getAsJsonObject();
+        final JsonObject rain = json.getAsJsonObject("rain");
+        return new WeatherInfo(
+                new Weather(first.get("main").getAsString(), first.get("description").getAsString(),
+                        json.getAsJsonObject("clouds").get("all").getAsInt(),
+                        rain == null ? 0 : number(rain.get("1h"))),
+                new MainInfo(number(main.get("temp")), number(main.get("feels_like")), number(main.get("temp_min")),
+                        number(main.get("temp_max")), main.get("pressure").getAsInt(), main.get("humidity").getAsInt(),
+                        main.get("sea_level").getAsInt(), main.get("grnd_level").getAsInt()),
+                new Wind(number(wind.get("speed")), wind.get("deg").getAsInt(), number(wind.get("gust"))));
+    }
+
+    private Reader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+    }
+
+    private static double number(JsonElement element) {
+        return element == null || element.isJsonNull() ? 0 : element.getAsDouble();
+    }
+}
@@ -0,0 +1,56 @@
+package me.hanane.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.gson.Gson;
+import me.hanane.config.GsonConfig;
+import org.junit.jupiter.api.Test;
+
+class WeatherInfoTypeAdapterTest {
+
+    static final String PAYLOAD = """
+            {"coord":{"lon":2.35,"lat":48.85},
+             "weather":[{"id":803,"main":"Clouds","description":"broken clouds","icon":"04d"},
+                        {"id":500,"main":"Rain","description":"light rain","icon":"10d"}],
+             "base":"stations",
+             "main":{"temp":11.2,"feels_like":10.4,"temp_min":9.8,"temp_max":12.6,"pressure":1012,
+                     "humidity":81,"sea_level":1013,"grnd_level":1003},
+             "visibility":10000,
+             "wind":{"speed":4.6,"deg":230,"gust":9.3},
+             "rain":{"1h":0.42},
+             "clouds":{"all":75},
+             "dt":1697558400,
+             "sys":{"type":2,"id":2041230,"country":"FR","sunrise":1697522875,"sunset":1697561604},
+             "timezone":7200,"id":2988507,"name":"Paris","cod":200}
+            """;
+
+    private final Gson gson = new GsonConfig().providerGson();
+
+    @Test
+    void readsTheFieldsShownAndSkipsTheRest() {
+        final WeatherInfo info = gson.fromJson(PAYLOAD, WeatherInfo.class);
+
+        assertEquals(new Weather("Clouds", "broken clouds", 75, 0.42), info.weather());
+        assertEquals(new MainInfo(11.2, 10.4, 9.8, 12.6, 1012, 81, 1013, 1003), info.mainInfo());
+        assertEquals(new Wind(4.6, 230, 9.3), info.wind());
+    }
+
+    @Test
+    void readsMissingSectionsAsNullAndNullNumbersAsZero() {
+        final WeatherInfo info = gson.fromJson("{\"main\":{\"temp\":null,\"pressure\":1000},\"cod\":200}",
+                WeatherInfo.class);
+
+        assertNull(info.weather());
+        assertNull(info.wind());
+        assertEquals(new MainInfo(0, 0, 0, 0, 1000, 0, 0, 0), info.mainInfo());
+    }
+
+    @Test
+    void readsWhatItWrites() {
+        final WeatherInfo info = new WeatherInfo(new Weather("Snow", "light snow", 100, 1.5),
+                new MainInfo(-2.5, -6, -3, -1, 990, 93, 991, 950), new Wind(7.1, 10, 12.4));
+
+        assertEquals(info, gson.fromJson(gson.toJson(info), WeatherInfo.class));
+    }
+}
@@ -0,0 +1,80 @@
+package me.hanane.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import me.hanane.location.Geolocation;
+import me.hanane.location.SpatialIndex;
+import me.hanane.resilience.CircuitBreaker;
+import me.hanane.resilience.LatencyTracker;
+import me.hanane.resilience.Resilience;
+import org.junit.jupiter.api.Test;
+
+class WeatherLookupServiceTest {
+
+    private final WeatherProviderClient client = mock(WeatherProviderClient.class);
+    private final WeatherLookupService service = new WeatherLookupService(client,
+            new WeatherCache(100, 0.01, Duration.ofMinutes(10), Duration.ofMinutes(1)),
+            new SpatialIndex(0.5, 0.001),
+            new Resilience("weather", new CircuitBreaker(50, 10, 0.5, Duration.ofSeconds(30)),
+                    new LatencyTracker(200), Duration.ofSeconds(3), false, 4),
+            8, Duration.ofSeconds(5));
+
+    @Test
+    void bulkLookupKeepsCallsPastTheirDeadlineInFlight() {
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger mostOpen = new AtomicInteger();
+        when(client.weather(any())).thenAnswer(invocation -> {
+            mostOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                open.decrementAndGet();
+                return Optional.<WeatherInfo>empty();
+            }, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        });
+        final List<Geolocation> locations = IntStream.range(0, 10)
+                .mapToObj(i -> new Geolocation("city-" + i, "", "", i, i))
+                .collect(Collectors.toList());
+
+        final long answered = service.weather(locations, 2, Duration.ofMillis(10))
+                .filter(result -> result.weather().isEmpty())
+                .count();
+
+        assertEquals(10, answered);
+        assertTrue(mostOpen.get() <= 2, "at most 2 calls open, was " + mostOpen.get());
+    }
+
+    @Test
+    void asyncBulkLookupCompletesWithEveryLocation() {
+        final WeatherInfo weather = new WeatherInfo(null, null, new Wind(3, 90, 5));
+        when(client.weather(any())).thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> Optional.of(weather),
+                CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+        final List<Geolocation> locations = IntStream.range(0, 20)
+                .mapToObj(i -> new Geolocation("city-" + i, "", "", i, -i))
+                .collect(Collectors.toList());
+
+        final List<WeatherLookupService.LocationWeather> results = service.weatherAsync(locations).join();
+
+        assertEquals(Set.copyOf(locations),
+                results.stream().map(WeatherLookupService.LocationWeather::location).collect(Collectors.toSet()));
+        assertTrue(results.stream().allMatch(result -> result.weather().equals(Optional.of(weather))));
+    }
+
+    @Test
+    void bulkLookupNeedsAtLeastOneCall() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.weather(List.of(new Geolocation("a", "", "", 0, 0)), 0, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,47 @@
+package me.hanane.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.vaadin.flow.shared.Registration;
+import java.time.Duration;
+import java.util.List;
+import me.hanane.location.Geolocation;
+import me.hanane.location.SpatialIndex;
+import org.junit.jupiter.api.Test;
+
+class WeatherPollerTest {
+
+    private final SpatialIndex spatialIndex = new SpatialIndex(0.5, 0.1);
+    private final WeatherPoller poller = new WeatherPoller(mock(WeatherLookupService.class),
+            new WeatherCache(100, 0.01, Duration.ofMinutes(10), Duration.ofMinutes(1)), spatialIndex,
+            new ObservationHistory(10));
+
+    @Test
+    void watchedWithinListsEveryPollingSlotOnce() {
+        // 500 m apart, beyond the snap radius but in the same 0.01 degree cell
+        final Geolocation west = new Geolocation("west", "", "", 2.3510, 48.8550);
+        final Geolocation east = new Geolocation("east", "", "", 2.3578, 48.8552);
+        poller.watch(west);
+        poller.watch(east);
+
+        assertEquals(1, poller.size());
+        assertEquals(List.of(west), poller.watchedWithin(48.855, 2.355, 5));
+    }
+
+    @Test
+    void unwatchedLocationsLeaveTheSpatialIndex() {
+        final Geolocation location = new Geolocation("a", "", "", 2.35, 48.85);
+        final Registration first = poller.watch(location);
+        final Registration second = poller.watch(location);
+        assertEquals(1, spatialIndex.size());
+
+        first.remove();
+        first.remove();
+        assertEquals(1, spatialIndex.size());
+        second.remove();
+
+        assertEquals(0, spatialIndex.size());
+        assertEquals(0, poller.size());
+    }
+}